@@ -0,0 +1,82 @@
+package com.kubectl.logParser.bench;
+
+import com.kubectl.logParser.CompiledSearch;
+import com.kubectl.logParser.LogParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-line cost of evaluating a search on lines already in memory, without any I/O: a single
+ * group's match and a whole compiled expression (what the log viewer's filter runs).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LineMatchBenchmark {
+    private static final int LINES = 100_000;
+
+    @Param({"literal", "caseInsensitive", "regex", "manyOr"})
+    public String preset;
+
+    private String[] lines;
+    private LogParser.SearchGroup group;
+    private CompiledSearch search;
+
+    @Setup
+    public void setUp() throws IOException {
+        lines = new String[LINES];
+        try (BufferedReader reader = Files.newBufferedReader(
+                LogGenerator.cached(32L << 20, LogGenerator.DEFAULT_SEED), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < LINES; i++) {
+                lines[i] = reader.readLine();
+            }
+        }
+        List<LogParser.SearchGroup> groups = SearchBenchmark.groups(preset);
+        group = groups.get(0);
+        search = CompiledSearch.compile(groups);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int groupMatches() {
+        int matches = 0;
+        for (String line : lines) {
+            if (group.matches(line)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int compiledMatches() {
+        int matches = 0;
+        for (String line : lines) {
+            if (search.matches(line)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
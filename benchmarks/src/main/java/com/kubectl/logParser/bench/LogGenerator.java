@@ -0,0 +1,165 @@
+package com.kubectl.logParser.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes synthetic Kubernetes pod logs: timestamped lines from a handful of services with a
+ * realistic mix of levels, request logs, occasional stack traces and the odd non-ASCII user
+ * name. The same seed and size always give the same file, so benchmark runs are comparable.
+ *
+ * Usage: LogGenerator &lt;output file&gt; &lt;size, e.g. 64MB or 10GB&gt; [seed]
+ */
+public class LogGenerator {
+    public static final long DEFAULT_SEED = 42;
+
+    private static final String[] SERVICES = {
+            "order-service", "payment-gateway", "inventory-api", "auth-service", "notification-worker"
+    };
+    private static final String[] CLASSES = {
+            "c.e.orders.OrderController", "c.e.payments.ChargeHandler", "c.e.inventory.StockRepository",
+            "c.e.auth.TokenFilter", "c.e.notify.MailSender", "o.s.web.servlet.DispatcherServlet"
+    };
+    private static final String[] PATHS = {
+            "/api/v1/orders", "/api/v1/payments", "/api/v1/stock", "/oauth/token", "/healthz", "/metrics"
+    };
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "PUT", "DELETE"};
+    private static final String[] USERS = {"alice", "bob", "carol", "dave", "José", "Zoë", "Łukasz", "mallory"};
+    private static final String[] ERRORS = {
+            "java.net.SocketTimeoutException: Read timed out",
+            "org.postgresql.util.PSQLException: Connection refused",
+            "java.lang.IllegalStateException: Order already settled",
+            "io.grpc.StatusRuntimeException: UNAVAILABLE: upstream connect error",
+            "java.lang.OutOfMemoryError: Java heap space"
+    };
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_INSTANT;
+
+    private final Random random;
+    private final String[] pods;
+    private long millis = Instant.parse("2024-03-01T00:00:00Z").toEpochMilli();
+
+    public LogGenerator(long seed) {
+        this.random = new Random(seed);
+        this.pods = new String[SERVICES.length * 3];
+        for (int i = 0; i < pods.length; i++) {
+            pods[i] = SERVICES[i % SERVICES.length] + "-" + Long.toHexString(0x7d00000L + random.nextInt(0xfffff))
+                    + "-" + Integer.toString(36 * 36 * 36 * 36 + random.nextInt(36 * 36 * 36 * 36 * 35), 36);
+        }
+    }
+
+    /**
+     * Returns a generated log of the given size in the temp directory, writing it the first
+     * time. Large logs take a while to write, so they are kept between runs.
+     */
+    public static Path cached(long size, long seed) throws IOException {
+        Path path = Paths.get(System.getProperty("java.io.tmpdir"), "kube-log-" + seed + "-" + size + ".log");
+        if (!Files.exists(path) || Files.size(path) < size) {
+            Path temp = Files.createTempFile(path.getParent(), "kube-log", ".tmp");
+            try {
+                new LogGenerator(seed).write(temp, size);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Writes whole lines until the file is at least the given number of bytes.
+     */
+    public void write(Path path, long size) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            long written = 0;
+            StringBuilder line = new StringBuilder(256);
+            while (written < size) {
+                line.setLength(0);
+                nextEntry(line);
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                written += bytes.length;
+            }
+        }
+    }
+
+    // Appends one log entry, which may span several lines, each ending in '\n'
+    private void nextEntry(StringBuilder out) {
+        millis += random.nextInt(40);
+        String pod = pods[random.nextInt(pods.length)];
+        String logger = CLASSES[random.nextInt(CLASSES.length)];
+        int roll = random.nextInt(1000);
+        String level = roll < 2 ? "FATAL" : roll < 40 ? "ERROR" : roll < 140 ? "WARN" : roll < 300 ? "DEBUG" : "INFO";
+
+        out.append(TIMESTAMP.format(Instant.ofEpochMilli(millis))).append(' ')
+                .append(String.format(Locale.ROOT, "%-5s", level))
+                .append(" [").append(pod).append("] ").append(logger).append(" - ");
+        switch (level) {
+            case "FATAL":
+            case "ERROR":
+                String error = ERRORS[random.nextInt(ERRORS.length)];
+                out.append("Request failed traceId=").append(Long.toHexString(random.nextLong()))
+                        .append(" user=").append(USERS[random.nextInt(USERS.length)])
+                        .append(": ").append(error).append('\n');
+                int frames = 2 + random.nextInt(6);
+                for (int i = 0; i < frames; i++) {
+                    out.append("\tat ").append(CLASSES[random.nextInt(CLASSES.length)])
+                            .append(".handle(Unknown Source:").append(random.nextInt(400)).append(")\n");
+                }
+                return;
+            case "WARN":
+                out.append("Slow response from ").append(SERVICES[random.nextInt(SERVICES.length)])
+                        .append(" duration=").append(500 + random.nextInt(9500)).append("ms retry=")
+                        .append(random.nextInt(4)).append('\n');
+                return;
+            case "DEBUG":
+                out.append("{\"event\":\"cache\",\"key\":\"item:").append(random.nextInt(100_000))
+                        .append("\",\"hit\":").append(random.nextBoolean()).append("}\n");
+                return;
+            default:
+                int index = random.nextInt(PATHS.length);
+                int status = random.nextInt(50) == 0 ? 404 : random.nextInt(200) == 0 ? 503 : 200;
+                out.append(METHODS[random.nextInt(METHODS.length)]).append(' ').append(PATHS[index])
+                        .append('/').append(random.nextInt(100_000)).append(" status=").append(status)
+                        .append(" duration=").append(1 + random.nextInt(random.nextInt(20) == 0 ? 3000 : 120))
+                        .append("ms user=").append(USERS[random.nextInt(USERS.length)]).append('\n');
+        }
+    }
+
+    /**
+     * Parses sizes such as "512KB", "64MB" or "10GB" (powers of 1024).
+     */
+    public static long parseSize(String size) {
+        String value = size.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (value.endsWith("KB")) {
+            unit = 1L << 10;
+        } else if (value.endsWith("MB")) {
+            unit = 1L << 20;
+        } else if (value.endsWith("GB")) {
+            unit = 1L << 30;
+        }
+        if (unit > 1) {
+            value = value.substring(0, value.length() - 2);
+        }
+        return Long.parseLong(value.trim()) * unit;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LogGenerator <output file> <size, e.g. 64MB> [seed]");
+            System.exit(2);
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        new LogGenerator(seed).write(Paths.get(args[0]), parseSize(args[1]));
+    }
+}
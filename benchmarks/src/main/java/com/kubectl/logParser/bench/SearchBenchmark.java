@@ -0,0 +1,100 @@
+package com.kubectl.logParser.bench;
+
+import com.kubectl.logParser.LogParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to search a whole generated log with {@link LogParser}, per search preset, file size and
+ * engine. Logs are generated once into the temp directory; the 10 GB one needs that much free
+ * space and a while to write, so narrow the sizes with e.g. "-p size=1MB,100MB" for quick runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1MB", "100MB", "1GB", "10GB"})
+    public String size;
+
+    @Param({"literal", "caseInsensitive", "regex", "manyOr", "includeAfter"})
+    public String preset;
+
+    /** "parallel" uses the memory-mapped engine for large files, "sequential" never does. */
+    @Param({"parallel", "sequential"})
+    public String engine;
+
+    private final LogParser parser = new LogParser();
+    private String file;
+    private List<LogParser.SearchGroup> groups;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path log = LogGenerator.cached(LogGenerator.parseSize(size), LogGenerator.DEFAULT_SEED);
+        // A leftover index would let the search skip most of the file
+        Files.deleteIfExists(Paths.get(log + ".idx"));
+        file = log.toString();
+        groups = groups(preset);
+        parser.setParallelSearch("parallel".equals(engine));
+    }
+
+    @Benchmark
+    public int search(Blackhole blackhole) throws IOException {
+        return parser.search(file, groups, includeAfter(preset), blackhole::consume);
+    }
+
+    /**
+     * The search groups for a preset. The generated logs have matches for all of them.
+     */
+    static List<LogParser.SearchGroup> groups(String preset) {
+        switch (preset) {
+            case "literal":
+                return Collections.singletonList(new LogParser.SearchGroup("ERROR", "", true, false));
+            case "caseInsensitive":
+                return Collections.singletonList(new LogParser.SearchGroup("timed out", "", false, false));
+            case "regex":
+                return Collections.singletonList(
+                        new LogParser.SearchGroup("duration=\\d{4,}ms", "", true, true));
+            case "manyOr":
+                return Arrays.asList(
+                        new LogParser.SearchGroup("SocketTimeoutException", "", true, false),
+                        new LogParser.SearchGroup("Connection refused", "OR", true, false),
+                        new LogParser.SearchGroup("OutOfMemoryError", "OR", true, false),
+                        new LogParser.SearchGroup("status=503", "OR", true, false),
+                        new LogParser.SearchGroup("UNAVAILABLE", "OR", true, false),
+                        new LogParser.SearchGroup("already settled", "OR", false, false),
+                        new LogParser.SearchGroup("retry=3", "OR", true, false),
+                        new LogParser.SearchGroup("user=mallory", "OR", true, false));
+            case "includeAfter":
+                return Collections.singletonList(new LogParser.SearchGroup("FATAL", "", true, false));
+            default:
+                throw new IllegalArgumentException("Unknown preset: " + preset);
+        }
+    }
+
+    static boolean includeAfter(String preset) {
+        return "includeAfter".equals(preset);
+    }
+}
@@ -0,0 +1,126 @@
+package com.kubectl;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous commands with a cap on how many are in flight at once. Commands beyond
+ * the cap wait in FIFO order, so many exec channels can share one SSH session without going
+ * over the server's MaxSessions limit.
+ */
+public class CommandExecutor {
+    // Opening a channel waits for the server's confirmation, which is delivered on the SSH
+    // session thread, so commands are never started on the thread that completes another one.
+    static final Executor STARTER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ssh-command-starter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Queue<PendingCommand<?>> queue = new ArrayDeque<>();
+    private int maxConcurrent;
+    private int running;
+
+    public CommandExecutor(int maxConcurrent) {
+        setMaxConcurrent(maxConcurrent);
+    }
+
+    public synchronized void setMaxConcurrent(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Queues a command. The timeout counts from when the command actually starts, not from when
+     * it was queued; a timeout of zero or less means no timeout. Cancelling the returned future
+     * removes a queued command or cancels a running one.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> command, long timeout, TimeUnit unit) {
+        PendingCommand<T> pending = new PendingCommand<>(command, unit.toMillis(timeout));
+        synchronized (this) {
+            queue.add(pending);
+        }
+        drain();
+        return pending.result;
+    }
+
+    private void drain() {
+        while (true) {
+            PendingCommand<?> next;
+            synchronized (this) {
+                if (running >= maxConcurrent || queue.isEmpty()) {
+                    return;
+                }
+                next = queue.poll();
+                if (next.result.isDone()) {
+                    continue;
+                }
+                running++;
+            }
+            STARTER.execute(next::start);
+        }
+    }
+
+    private void finished() {
+        synchronized (this) {
+            running--;
+        }
+        drain();
+    }
+
+    private class PendingCommand<T> {
+        private final Supplier<CompletableFuture<T>> command;
+        private final long timeoutMillis;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        PendingCommand(Supplier<CompletableFuture<T>> command, long timeoutMillis) {
+            this.command = command;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        void start() {
+            CompletableFuture<T> running;
+            try {
+                running = command.get();
+            } catch (RuntimeException e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            if (timeoutMillis > 0) {
+                running.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+
+            CompletableFuture<T> task = running;
+            result.whenComplete((value, error) -> task.cancel(true));
+            task.whenComplete((value, error) -> {
+                finished();
+                if (error instanceof CompletionException && error.getCause() != null) {
+                    result.completeExceptionally(error.getCause());
+                } else if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+    }
+}
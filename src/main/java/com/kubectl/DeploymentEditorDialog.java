@@ -4,6 +4,7 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.util.concurrent.CompletionException;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rtextarea.RTextScrollPane;
@@ -79,32 +80,23 @@ public class DeploymentEditorDialog extends JDialog {
 
     private void loadDeployment() {
         setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-        new Thread(() -> {
-            try {
-                // Get deployment name from pod
-                String result = sshConnection.executeCommand("kubectl get pod " + podName + " -o jsonpath='{.metadata.ownerReferences[0].name}'");
-                String deploymentName = result.trim();
-                
-                // Get deployment YAML
-                result = sshConnection.executeCommand("kubectl get deployment " + deploymentName + " -o yaml");
-                
-                final String yaml = result;
-                SwingUtilities.invokeLater(() -> {
-                    editor.setText(yaml);
-                    editor.setCaretPosition(0);
-                    setCursor(Cursor.getDefaultCursor());
-                });
-            } catch (Exception e) {
-                SwingUtilities.invokeLater(() -> {
-                    setCursor(Cursor.getDefaultCursor());
+        // Get deployment name from pod, then the deployment YAML
+        sshConnection.executeCommandAsync("kubectl get pod " + podName + " -o jsonpath='{.metadata.ownerReferences[0].name}'")
+            .thenCompose(result -> sshConnection.executeCommandAsync("kubectl get deployment " + result.trim() + " -o yaml"))
+            .whenComplete((yaml, error) -> SwingUtilities.invokeLater(() -> {
+                setCursor(Cursor.getDefaultCursor());
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
                     JOptionPane.showMessageDialog(this,
-                        "Error loading deployment: " + e.getMessage(),
+                        "Error loading deployment: " + cause.getMessage(),
                         "Error",
                         JOptionPane.ERROR_MESSAGE);
                     dispose();
-                });
-            }
-        }).start();
+                    return;
+                }
+                editor.setText(yaml);
+                editor.setCaretPosition(0);
+            }));
     }
 
     private void saveDeployment() {
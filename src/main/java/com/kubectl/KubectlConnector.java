@@ -1,6 +1,7 @@
 package com.kubectl;
 
 import com.formdev.flatlaf.FlatLightLaf;
+import com.kubectl.logParser.CompiledSearch;
 import com.kubectl.logParser.LogParser;
 import javax.swing.*;
 import javax.swing.event.PopupMenuEvent;
@@ -14,9 +15,15 @@ import java.time.*;
 import java.time.format.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 public class KubectlConnector extends JFrame {
+    // Lines kept in watch mode before the oldest are dropped
+    private static final int WATCH_MAX_LINES = Integer.getInteger("kubectl.watch.maxLines", 200_000);
+    private static final int MAX_OUTPUT_COLUMNS = 2000;
+    private static final String TITLE = "Kubectl Log Extractor";
+
     // Fields
     private SSHConnection sshConnection;
     private JTextField hostField;
@@ -24,10 +31,12 @@ public class KubectlConnector extends JFrame {
     private JPasswordField passwordField;
     private JComboBox<String> environmentCombo;
     private JComboBox<String> podListCombo;
-    private JTextArea outputArea;
+    private JList<String> outputList;
+    private LogViewModel logModel;
     private JTextField commandField;
     private JButton saveLogsButton;
     private JButton getLogsButton;
+    private JButton getMultiPodLogsButton;
     private JToggleButton watchLogsButton;
     private JButton refreshPodsButton;
     private JButton editDeploymentButton;
@@ -49,14 +58,18 @@ public class KubectlConnector extends JFrame {
     private boolean includeAfterMatch = false;
     private JButton resetSearchButton;
     private Map<String, PodInfo> podInfoMap;
-    private javax.swing.Timer logWatchTimer;
-    private String originalLogContent;
+    private PodLogWatcher logWatcher;
+    private MultiPodLogFetcher multiPodFetcher;
+    // Pod whose log is shown filtered on the server, so the view holds only candidate lines
+    private String serverFilteredPod;
+    private CompletableFuture<Void> logFetch;
+    private LogLineBatcher outputBatcher;
     private SearchDialog searchDialog;
     private JButton openInVSCodeButton; // New Button
 
     public KubectlConnector() {
         FlatLightLaf.setup();
-        setTitle("Kubectl Log Extractor");
+        setTitle(TITLE);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1000, 800);
         setLocationRelativeTo(null);
@@ -66,6 +79,25 @@ public class KubectlConnector extends JFrame {
         currentSearchGroups = new ArrayList<>();
         credentialsManager = new CredentialsManager();
         sshConnection = new SSHConnection();
+        sshConnection.setConnectionListener(new SSHConnection.ConnectionListener() {
+            @Override
+            public void connectionLost() {
+                SwingUtilities.invokeLater(() -> setTitle(TITLE + " - reconnecting..."));
+            }
+
+            @Override
+            public void reconnected() {
+                SwingUtilities.invokeLater(() -> setTitle(TITLE));
+            }
+
+            @Override
+            public void reconnectFailed(Exception error) {
+                SwingUtilities.invokeLater(() -> {
+                    setTitle(TITLE);
+                    showError("Lost connection to the server: " + error.getMessage() + "\nPlease connect again.");
+                });
+            }
+        });
         initializeEnvironmentCommands();
 
         // Create components
@@ -264,6 +296,10 @@ public class KubectlConnector extends JFrame {
         getLogsButton = createStyledButton("Get Logs");
         getLogsButton.addActionListener(e -> getLogs());
 
+        getMultiPodLogsButton = createStyledButton("Multi-Pod Logs");
+        getMultiPodLogsButton.setToolTipText("Fetch several pods' logs at once, merged by timestamp");
+        getMultiPodLogsButton.addActionListener(e -> getMultiPodLogs());
+
         watchLogsButton = new JToggleButton("Watch Logs");
         styleButton(watchLogsButton);
         watchLogsButton.addActionListener(this::watchLogs);
@@ -272,6 +308,7 @@ public class KubectlConnector extends JFrame {
         editDeploymentButton.addActionListener(e -> editDeployment());
 
         podPanel.add(getLogsButton);
+        podPanel.add(getMultiPodLogsButton);
         podPanel.add(watchLogsButton);
         podPanel.add(editDeploymentButton);
 
@@ -297,11 +334,29 @@ public class KubectlConnector extends JFrame {
         buttonPanel.add(exportButton);
         buttonPanel.add(openInVSCodeButton); // Add the new button here
 
-        // Output area
-        outputArea = new JTextArea();
-        outputArea.setEditable(false);
-        outputArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        JScrollPane scrollPane = new JScrollPane(outputArea);
+        // Output list: a virtualized view over a file-backed line store, so only the visible
+        // rows are ever read or laid out
+        try {
+            logModel = new LogViewModel(new LogLineStore());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        outputList = new JList<>(logModel);
+        Font outputFont = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+        outputList.setFont(outputFont);
+        outputList.setFixedCellHeight(outputList.getFontMetrics(outputFont).getHeight());
+        outputList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value,
+                                                          int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                setText(value.toString().replace("\t", "    "));
+                return this;
+            }
+        });
+        updateOutputCellWidth();
+        outputBatcher = new LogLineBatcher(this::appendLines);
+        JScrollPane scrollPane = new JScrollPane(outputList);
         scrollPane.setBorder(BorderFactory.createTitledBorder("Output"));
 
         // Add components to center panel
@@ -329,6 +384,7 @@ public class KubectlConnector extends JFrame {
         private JCheckBox caseSensitiveCheck;
         private JCheckBox regexCheck;
         private JCheckBox includeAfterMatchCheck;
+        private JCheckBox serverFilterCheck;
         private JList<LogSearchCriteria> criteriaList;
         private DefaultListModel<LogSearchCriteria> criteriaListModel;
         private List<LogSearchCriteria> currentSearchGroups;
@@ -383,6 +439,10 @@ public class KubectlConnector extends JFrame {
             includeAfterMatchCheck = new JCheckBox("Include Lines After Match");
             inputPanel.add(includeAfterMatchCheck, gbc);
 
+            gbc.gridy = 5;
+            serverFilterCheck = new JCheckBox("Filter on Server (re-fetch only matching lines)");
+            inputPanel.add(serverFilterCheck, gbc);
+
             // Criteria List
             criteriaListModel = new DefaultListModel<>();
             criteriaList = new JList<>(criteriaListModel);
@@ -446,6 +506,7 @@ public class KubectlConnector extends JFrame {
             caseSensitiveCheck.setSelected(false);
             regexCheck.setSelected(false);
             includeAfterMatchCheck.setSelected(false);
+            serverFilterCheck.setSelected(false);
             operationCombo.setSelectedIndex(0);
         }
 
@@ -491,45 +552,27 @@ public class KubectlConnector extends JFrame {
                 return;
             }
 
-            String content = outputArea.getText();
-            String[] lines = content.split("\n");
-            StringBuilder result = new StringBuilder();
-            boolean includeNext = false;
-
-            for (String line : lines) {
-                boolean matches = evaluateSearchCriteria(line);
-                if (matches || includeNext) {
-                    result.append(line).append("\n");
-                    includeNext = includeAfterMatchCheck.isSelected() && matches;
+            List<LogParser.SearchGroup> groups = new ArrayList<>();
+            for (LogSearchCriteria criteria : currentSearchGroups) {
+                groups.add(criteria.toSearchGroup());
+            }
+            CompiledSearch search = CompiledSearch.compile(groups);
+            if (serverFilterCheck.isSelected()) {
+                RemoteLogFilter remoteFilter = RemoteLogFilter.of(groups, includeAfterMatchCheck.isSelected());
+                if (remoteFilter != null) {
+                    getFilteredLogs(remoteFilter, search, includeAfterMatchCheck.isSelected());
+                    return;
                 }
+                showInfo("These criteria can't be checked on the server; filtering the loaded logs instead");
             }
-
-            if (result.length() > 0) {
-                outputArea.setText(result.toString());
-                outputArea.setCaretPosition(0);
+            int visible = logModel.applyFilter(search::matches, includeAfterMatchCheck.isSelected());
+            if (visible > 0) {
+                outputList.ensureIndexIsVisible(0);
             } else {
                 showInfo("No matches found");
                 resetSearch();
             }
         }
-
-        private boolean evaluateSearchCriteria(String line) {
-            if (currentSearchGroups.isEmpty()) return true;
-
-            boolean isAnd = currentSearchGroups.get(0).operation.equals("AND");
-            boolean result = isAnd;
-
-            for (LogSearchCriteria criteria : currentSearchGroups) {
-                boolean matches = criteria.matches(line);
-                if (isAnd) {
-                    result &= matches;
-                } else {
-                    result |= matches;
-                }
-            }
-
-            return result;
-        }
     }
 
     private void watchLogs(ActionEvent e) {
@@ -547,34 +590,36 @@ public class KubectlConnector extends JFrame {
         }
 
         if (watchLogsButton.isSelected()) {
-            if (logWatchTimer != null) {
-                logWatchTimer.stop();
-            }
-
-            // Use javax.swing.Timer explicitly
-            logWatchTimer = new javax.swing.Timer(2000, evt -> {
-                try {
-                    String command = String.format("kubectl logs --tail=50 %s", selectedPod);
-                    String logs = sshConnection.executeCommand(command);
-                    outputArea.setText(logs);
-                    outputArea.setCaretPosition(outputArea.getDocument().getLength());
-                    originalLogContent = logs;
-                } catch (Exception ex) {
-                    showError("Failed to watch logs: " + ex.getMessage());
-                    watchLogsButton.setSelected(false);
-                    logWatchTimer.stop();
-                }
-            });
-            logWatchTimer.start();
+            stopWatchingLogs();
+            stopMultiPodFetch();
+            stopLogFetch();
+            resetOutput(WATCH_MAX_LINES);
+            outputBatcher.clear();
+            outputBatcher.start();
+
+            logWatcher = new PodLogWatcher(sshConnection, selectedPod, outputBatcher::add,
+                    error -> SwingUtilities.invokeLater(() -> {
+                        logWatcher = null;
+                        outputBatcher.stop();
+                        showError("Failed to watch logs: " + error.getMessage());
+                        watchLogsButton.setSelected(false);
+                    }));
+            logWatcher.start();
             showInfo("Log watching started");
         } else {
-            if (logWatchTimer != null) {
-                logWatchTimer.stop();
-            }
+            stopWatchingLogs();
             showInfo("Log watching stopped");
         }
     }
 
+    private void stopWatchingLogs() {
+        if (logWatcher != null) {
+            logWatcher.stop();
+            logWatcher = null;
+            outputBatcher.stop();
+        }
+    }
+
     private void getLogs() {
         String selectedPod = getPodName(podListCombo.getSelectedItem().toString());
         if (selectedPod == null || selectedPod.isEmpty()) {
@@ -582,21 +627,243 @@ public class KubectlConnector extends JFrame {
             return;
         }
 
-        try {
-            if (!sshConnection.isConnected()) {
-                showError("Not connected to server. Please connect first.");
-                return;
+        if (!sshConnection.isConnected()) {
+            showError("Not connected to server. Please connect first.");
+            return;
+        }
+
+        if (logWatcher != null) {
+            stopWatchingLogs();
+            watchLogsButton.setSelected(false);
+        }
+        stopMultiPodFetch();
+        stopLogFetch();
+        streamLogs(selectedPod);
+    }
+
+    private void streamLogs(String selectedPod) {
+        resetOutput(0);
+        getLogsButton.setEnabled(false);
+        outputBatcher.clear();
+        outputBatcher.start();
+
+        // Stream the log in the background; the batcher appends it to the view once per frame
+        String command = String.format("kubectl logs %s", selectedPod);
+        CompletableFuture<Void> fetch = sshConnection.streamCommandAsync(command, outputBatcher::add);
+        logFetch = fetch;
+        fetch.whenComplete((v, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (fetch.isCancelled()) {
+                        return;
+                    }
+                    logFetch = null;
+                    outputBatcher.stop();
+                    getLogsButton.setEnabled(true);
+                    if (error != null) {
+                        showError("Failed to get logs: " + error.getMessage());
+                        return;
+                    }
+                    outputList.ensureIndexIsVisible(0);
+                }));
+    }
+
+    /**
+     * Re-fetches the selected pod's log through a filter that runs on the server, so only
+     * candidate lines are transferred; they are filtered again locally with the exact search.
+     */
+    private void getFilteredLogs(RemoteLogFilter remoteFilter, CompiledSearch search, boolean includeNextLine) {
+        Object selected = podListCombo.getSelectedItem();
+        String selectedPod = selected != null ? getPodName(selected.toString()) : null;
+        if (selectedPod == null || selectedPod.isEmpty()) {
+            showError("Please select a pod first");
+            return;
+        }
+
+        if (!sshConnection.isConnected()) {
+            showError("Not connected to server. Please connect first.");
+            return;
+        }
+
+        if (logWatcher != null) {
+            stopWatchingLogs();
+            watchLogsButton.setSelected(false);
+        }
+        stopMultiPodFetch();
+        stopLogFetch();
+
+        resetOutput(0);
+        serverFilteredPod = selectedPod;
+        // Lines are filtered as they arrive
+        logModel.applyFilter(search::matches, includeNextLine);
+        getLogsButton.setEnabled(false);
+        outputBatcher.clear();
+        outputBatcher.start();
+
+        String command = remoteFilter.apply(String.format("kubectl logs %s", selectedPod));
+        CompletableFuture<Void> fetch = sshConnection.streamCommandAsync(command, outputBatcher::add);
+        logFetch = fetch;
+        fetch.whenComplete((v, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (fetch.isCancelled()) {
+                        return;
+                    }
+                    logFetch = null;
+                    getLogsButton.setEnabled(true);
+                    if (error != null) {
+                        outputBatcher.stop();
+                        showError("Failed to get logs: " + error.getMessage());
+                        return;
+                    }
+                    // Lines still queued in the batcher may be matches
+                    outputBatcher.stop(() -> {
+                        if (logModel.getSize() > 0) {
+                            outputList.ensureIndexIsVisible(0);
+                        } else {
+                            showInfo("No matches found");
+                        }
+                    });
+                }));
+    }
+
+    private void getMultiPodLogs() {
+        if (!sshConnection.isConnected()) {
+            showError("Not connected to server. Please connect first.");
+            return;
+        }
+        if (podInfoMap.isEmpty()) {
+            showError("No pods loaded. Please refresh the pod list first.");
+            return;
+        }
+
+        List<String> podNames = new ArrayList<>(podInfoMap.keySet());
+        Collections.sort(podNames);
+        JList<String> podList = new JList<>(podNames.toArray(new String[0]));
+        podList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        podList.setVisibleRowCount(15);
+        // Every pod needs its own channel for the whole fetch; with more pods than the channel
+        // cap, the merge would wait for the later ones to start, so the selection is capped
+        int maxPods = sshConnection.getMaxConcurrentStreams();
+        // Start with the replicas of the selected pod's deployment
+        Object selected = podListCombo.getSelectedItem();
+        String deployment = selected != null ? deploymentOf(getPodName(selected.toString())) : null;
+        int preselected = 0;
+        for (int i = 0; i < podNames.size() && preselected < maxPods; i++) {
+            if (deployment != null && deployment.equals(deploymentOf(podNames.get(i)))) {
+                podList.addSelectionInterval(i, i);
+                preselected++;
             }
+        }
+        JScrollPane podScroll = new JScrollPane(podList);
+        podScroll.setPreferredSize(new Dimension(450, 300));
+        JPanel podPanel = new JPanel(new BorderLayout(0, 5));
+        podPanel.add(new JLabel("Select up to " + maxPods + " pods (the SSH connection's channel limit):"), BorderLayout.NORTH);
+        podPanel.add(podScroll, BorderLayout.CENTER);
+        int choice = JOptionPane.showConfirmDialog(this, podPanel, "Select Pods", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE);
+        List<String> selectedPods = podList.getSelectedValuesList();
+        if (choice != JOptionPane.OK_OPTION || selectedPods.isEmpty()) {
+            return;
+        }
+        if (selectedPods.size() > maxPods) {
+            showError("Logs can be fetched from at most " + maxPods + " pods at once; " + selectedPods.size() + " were selected");
+            return;
+        }
+
+        if (logWatcher != null) {
+            stopWatchingLogs();
+            watchLogsButton.setSelected(false);
+        }
+        stopMultiPodFetch();
+        stopLogFetch();
+
+        resetOutput(0);
+        outputBatcher.clear();
+        outputBatcher.start();
+
+        // All pods stream at once; lines are merged by timestamp and prefixed with the pod name
+        long start = System.currentTimeMillis();
+        long startBytes = sshConnection.getReceivedBytes();
+        MultiPodLogFetcher fetcher = new MultiPodLogFetcher(sshConnection, selectedPods, outputBatcher::add);
+        multiPodFetcher = fetcher;
+        fetcher.start().whenComplete((v, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    // A fetch replaced by another one leaves the output to it
+                    if (multiPodFetcher != fetcher) {
+                        return;
+                    }
+                    multiPodFetcher = null;
+                    outputBatcher.stop();
+                    if (error != null) {
+                        showError("Failed to get logs: " + error.getMessage());
+                        return;
+                    }
+                    outputList.ensureIndexIsVisible(0);
+                    Map<String, Throwable> failures = fetcher.getFailures();
+                    if (!failures.isEmpty()) {
+                        StringBuilder message = new StringBuilder("Could not get logs for:");
+                        failures.forEach((pod, failure) -> message.append("\n").append(pod).append(": ").append(failure.getMessage()));
+                        showError(message.toString());
+                    } else {
+                        double seconds = (System.currentTimeMillis() - start) / 1000.0;
+                        double megabytes = (sshConnection.getReceivedBytes() - startBytes) / 1e6;
+                        showInfo(String.format("Fetched logs of %d pods (%.1f MB) in %.1f s, %.1f MB/s",
+                                selectedPods.size(), megabytes, seconds, megabytes / Math.max(seconds, 0.001)));
+                    }
+                }));
+    }
 
-            String command = String.format("kubectl logs %s", selectedPod);
-            String logs = sshConnection.executeCommand(command);
+    // A Get Logs or server-filtered fetch still streaming into the view
+    private void stopLogFetch() {
+        if (logFetch != null) {
+            logFetch.cancel(true);
+            logFetch = null;
+            outputBatcher.stop();
+            getLogsButton.setEnabled(true);
+        }
+    }
 
-            outputArea.setText(logs);
-            outputArea.setCaretPosition(0);
-            originalLogContent = logs;
+    private void stopMultiPodFetch() {
+        if (multiPodFetcher != null) {
+            multiPodFetcher.cancel();
+            multiPodFetcher = null;
+            outputBatcher.stop();
+        }
+    }
 
-        } catch (Exception e) {
-            showError("Failed to get logs: " + e.getMessage());
+    // Deployment pods are named <deployment>-<replica set hash>-<suffix>
+    private static String deploymentOf(String podName) {
+        if (podName == null) {
+            return null;
+        }
+        String[] parts = podName.split("-");
+        if (parts.length < 3) {
+            return podName;
+        }
+        return String.join("-", Arrays.copyOf(parts, parts.length - 2));
+    }
+
+    private void appendLines(List<String> lines) {
+        logModel.appendLines(lines);
+        updateOutputCellWidth();
+        if (logWatcher != null && logModel.getSize() > 0) {
+            outputList.ensureIndexIsVisible(logModel.getSize() - 1);
+        }
+    }
+
+    private void resetOutput(int maxLines) {
+        serverFilteredPod = null;
+        logModel.clearFilter();
+        logModel.clear();
+        logModel.setMaxLines(maxLines);
+        updateOutputCellWidth();
+    }
+
+    // With a fixed cell size JList never measures every row, which is what keeps it virtual
+    private void updateOutputCellWidth() {
+        int columns = Math.min(Math.max(logModel.getStore().getMaxLineLength(), 80), MAX_OUTPUT_COLUMNS);
+        int width = outputList.getFontMetrics(outputList.getFont()).charWidth('m') * columns + 10;
+        if (outputList.getFixedCellWidth() != width) {
+            outputList.setFixedCellWidth(width);
         }
     }
 
@@ -612,42 +879,39 @@ public class KubectlConnector extends JFrame {
             return;
         }
 
-        try {
-            String command = String.format("kubectl get deployment -o yaml");
-            String yaml = sshConnection.executeCommand(command);
-            DeploymentEditorDialog editor = new DeploymentEditorDialog(this, sshConnection, podName);
-            editor.setVisible(true);
-        } catch (Exception e) {
-            showError("Failed to get deployment: " + e.getMessage());
-        }
+        // The dialog loads the deployment YAML itself, asynchronously
+        DeploymentEditorDialog editor = new DeploymentEditorDialog(this, sshConnection, podName);
+        editor.setVisible(true);
     }
 
     private void refreshPods() {
-        try {
-            if (!sshConnection.isConnected()) {
-                showError("Not connected to server. Please connect first.");
-                return;
-            }
-
-            String result = sshConnection.executeCommand("kubectl get pods");
-            podInfoMap.clear();
-
-            String[] lines = result.split("\n");
-            for (int i = 1; i < lines.length; i++) { // Skip header line
-                String[] parts = lines[i].trim().split("\\s+");
-                if (parts.length >= 5) {
-                    String name = parts[0];
-                    String status = parts[2];
-                    LocalDateTime startTime = parseAgeToStartTime(parts[4]);
-                    PodInfo podInfo = new PodInfo(name, status, startTime);
-                    podInfoMap.put(name, podInfo);
-                }
-            }
-            refreshPodListCombo();
-            showInfo("Pods refreshed successfully");
-        } catch (Exception e) {
-            showError("Failed to refresh pods: " + e.getMessage());
+        if (!sshConnection.isConnected()) {
+            showError("Not connected to server. Please connect first.");
+            return;
         }
+
+        sshConnection.executeCommandAsync("kubectl get pods").whenComplete((result, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        showError("Failed to refresh pods: " + error.getMessage());
+                        return;
+                    }
+
+                    podInfoMap.clear();
+                    String[] lines = result.split("\n");
+                    for (int i = 1; i < lines.length; i++) { // Skip header line
+                        String[] parts = lines[i].trim().split("\\s+");
+                        if (parts.length >= 5) {
+                            String name = parts[0];
+                            String status = parts[2];
+                            LocalDateTime startTime = parseAgeToStartTime(parts[4]);
+                            PodInfo podInfo = new PodInfo(name, status, startTime);
+                            podInfoMap.put(name, podInfo);
+                        }
+                    }
+                    refreshPodListCombo();
+                    showInfo("Pods refreshed successfully");
+                }));
     }
 
     private LocalDateTime parseAgeToStartTime(String age) {
@@ -710,6 +974,8 @@ public class KubectlConnector extends JFrame {
                             showError("Failed to connect to environment: " + result));
                     return;
                 }
+                // Rerun on the new session if the connection drops and is re-established
+                sshConnection.setBootstrapCommand(envCommand);
 
                 if (rememberCredentialsCheckbox.isSelected()) {
                     Credentials creds = new Credentials(host, username, password, selectedEnv, true);
@@ -777,13 +1043,26 @@ public class KubectlConnector extends JFrame {
     }
 
     private void resetSearch() {
-        if (originalLogContent != null) {
-            outputArea.setText(originalLogContent);
-            outputArea.setCaretPosition(0);
-        }
         if (searchDialog != null) {
             searchDialog.clearSearchCriteria();
         }
+        // Only the server filter's candidates were fetched, so the full log has to be fetched again
+        if (serverFilteredPod != null) {
+            String pod = serverFilteredPod;
+            if (!sshConnection.isConnected()) {
+                showError("Not connected to server. Please connect first.");
+                return;
+            }
+            stopLogFetch();
+            stopMultiPodFetch();
+            streamLogs(pod);
+            showInfo("Search reset; loading the full log of " + pod);
+            return;
+        }
+        if (logModel.isFiltered()) {
+            logModel.clearFilter();
+            outputList.ensureIndexIsVisible(0);
+        }
         showInfo("Search reset successfully");
     }
 
@@ -793,8 +1072,8 @@ public class KubectlConnector extends JFrame {
         fileChooser.setSelectedFile(new File("kubectl_logs.txt"));
 
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (PrintWriter writer = new PrintWriter(fileChooser.getSelectedFile())) {
-                writer.print(outputArea.getText());
+            try (Writer writer = new BufferedWriter(new FileWriter(fileChooser.getSelectedFile()))) {
+                logModel.writeTo(writer);
                 showInfo("Logs exported successfully to: " + fileChooser.getSelectedFile().getAbsolutePath());
             } catch (IOException e) {
                 showError("Failed to export logs: " + e.getMessage());
@@ -838,46 +1117,6 @@ public class KubectlConnector extends JFrame {
         }
     }
 
-    private static class LogSearchCriteria {
-        private final String text;
-        private final String operation;
-        private final boolean caseSensitive;
-        private final boolean useRegex;
-        private Pattern pattern;
-
-        public LogSearchCriteria(String text, String operation, boolean caseSensitive, boolean useRegex) {
-            this.text = text;
-            this.operation = operation;
-            this.caseSensitive = caseSensitive;
-            this.useRegex = useRegex;
-
-            if (useRegex) {
-                int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
-                pattern = Pattern.compile(text, flags);
-            }
-        }
-
-        public boolean matches(String line) {
-            if (useRegex) {
-                return pattern.matcher(line).find();
-            } else if (caseSensitive) {
-                return line.contains(text);
-            } else {
-                return line.toLowerCase().contains(text.toLowerCase());
-            }
-        }
-
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("\"").append(text).append("\"");
-            if (useRegex) sb.append(" (regex)");
-            if (caseSensitive) sb.append(" (case sensitive)");
-            sb.append(" [").append(operation).append("]");
-            return sb.toString();
-        }
-    }
-
     // **New Method to Open VS Code**
     private void openInVSCode() {
         try {
@@ -908,8 +1147,8 @@ public class KubectlConnector extends JFrame {
             File tempFile = new File(tempDir, fileName);
 
             // Write the log content to the file
-            try (FileWriter writer = new FileWriter(tempFile)) {
-                writer.write(outputArea.getText());
+            try (Writer writer = new BufferedWriter(new FileWriter(tempFile))) {
+                logModel.writeTo(writer);
             }
 
             // Open VS Code with the file
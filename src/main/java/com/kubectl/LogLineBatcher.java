@@ -0,0 +1,115 @@
+package com.kubectl;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Collects lines produced on background threads and hands them to the Swing side in batches,
+ * at most once per frame. Producers only touch a lock-free queue; the sink runs on the EDT
+ * with everything that arrived since the last frame, so the view does one update per frame
+ * instead of one per line.
+ */
+public class LogLineBatcher {
+    private static final int FRAME_MILLIS = 16;
+    private static final int MAX_CHARS_PER_FRAME = 512 * 1024;
+
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<String>> sink;
+    private final Timer timer;
+    // Set by stop() until the queue has been delivered; only touched on the EDT
+    private boolean stopping;
+    private Runnable onDrained;
+
+    /**
+     * @param sink receives each batch on the EDT
+     */
+    public LogLineBatcher(Consumer<List<String>> sink) {
+        this.sink = sink;
+        this.timer = new Timer(FRAME_MILLIS, e -> frame());
+        this.timer.setCoalesce(true);
+    }
+
+    /**
+     * Queues a line (without terminator). Safe to call from any thread.
+     */
+    public void add(String line) {
+        pending.add(line);
+    }
+
+    /**
+     * Starts delivering batches, abandoning a stop still in progress.
+     */
+    public void start() {
+        runOnEdt(() -> {
+            stopping = false;
+            onDrained = null;
+            timer.start();
+        });
+    }
+
+    /**
+     * Delivers whatever is still queued, still one bounded batch per frame so a large backlog
+     * does not hold the EDT, and then stops the frame timer.
+     */
+    public void stop() {
+        stop(null);
+    }
+
+    /**
+     * Like {@link #stop()}, then runs onDrained on the EDT once the last line has been
+     * delivered, unless {@link #start()} is called first.
+     */
+    public void stop(Runnable onDrained) {
+        runOnEdt(() -> {
+            stopping = true;
+            this.onDrained = onDrained;
+            timer.start();
+            frame();
+        });
+    }
+
+    /**
+     * Drops queued lines that have not been delivered yet.
+     */
+    public void clear() {
+        pending.clear();
+    }
+
+    private void frame() {
+        drain(MAX_CHARS_PER_FRAME);
+        if (stopping && pending.isEmpty()) {
+            timer.stop();
+            stopping = false;
+            Runnable drained = onDrained;
+            onDrained = null;
+            if (drained != null) {
+                drained.run();
+            }
+        }
+    }
+
+    private void drain(int maxChars) {
+        List<String> batch = new ArrayList<>();
+        int chars = 0;
+        String line;
+        while (chars < maxChars && (line = pending.poll()) != null) {
+            batch.add(line);
+            chars += line.length() + 1;
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    private static void runOnEdt(Runnable action) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            action.run();
+        } else {
+            SwingUtilities.invokeLater(action);
+        }
+    }
+}
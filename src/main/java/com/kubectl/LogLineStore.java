@@ -0,0 +1,327 @@
+package com.kubectl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Append-only store of log lines kept in temporary files rather than on the heap. Only the
+ * line-start offsets (8 bytes per line) and a small cache of recently read lines stay in
+ * memory. With a line cap the store behaves as a ring buffer: the oldest lines are dropped.
+ *
+ * The lines go to a series of segment files of about {@link #SEGMENT_BYTES} each, and a line
+ * never spans two. Offsets are positions in the concatenation of the segments, so a segment
+ * whose lines have all been dropped is deleted without copying anything, and appending never
+ * stalls on compaction.
+ *
+ * Lines are addressed by absolute index, which keeps counting up as old lines are dropped;
+ * {@link #getFirstIndex()} is the oldest line still retained.
+ */
+public class LogLineStore implements AutoCloseable {
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private static final int CACHE_SIZE = 2048;
+    private static final int SCAN_BLOCK_SIZE = 1024 * 1024;
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final byte[] NEWLINE = {'\n'};
+
+    // Oldest first; lines are appended to the last one
+    private final List<Segment> segments = new ArrayList<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private long writePosition;
+    private long flushedPosition;
+
+    // Ring of line-start offsets: the line with absolute index firstIndex + i starts at
+    // offsets[(head + i) % offsets.length]
+    private long[] offsets = new long[1024];
+    private int head;
+    private int count;
+    private long firstIndex;
+    private int maxLines;
+    private int maxLineLength;
+
+    private final Map<Long, String> cache = new LinkedHashMap<Long, String>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public LogLineStore() throws IOException {
+        segments.add(new Segment(0));
+    }
+
+    /**
+     * Caps the number of retained lines; zero or less means unbounded.
+     */
+    public synchronized void setMaxLines(int maxLines) {
+        this.maxLines = maxLines;
+        if (maxLines > 0 && count > maxLines) {
+            dropOldest(count - maxLines);
+        }
+    }
+
+    public synchronized int getMaxLines() {
+        return maxLines;
+    }
+
+    /**
+     * Appends a line (without terminator) and returns how many old lines were dropped to stay
+     * under the cap.
+     */
+    public synchronized int append(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int dropped = 0;
+        if (maxLines > 0 && count >= maxLines) {
+            dropped = count - maxLines + 1;
+            dropOldest(dropped);
+        }
+        if (count == offsets.length) {
+            grow();
+        }
+        if (writePosition - currentSegment().start >= SEGMENT_BYTES) {
+            startSegment();
+        }
+        offsets[(head + count) % offsets.length] = writePosition;
+        count++;
+        maxLineLength = Math.max(maxLineLength, line.length());
+
+        write(bytes);
+        write(NEWLINE);
+        return dropped;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getFirstIndex() {
+        return firstIndex;
+    }
+
+    public synchronized long getEndIndex() {
+        return firstIndex + count;
+    }
+
+    public synchronized int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    /**
+     * Returns the line with the given absolute index, or null if it has been dropped.
+     */
+    public synchronized String getLine(long index) {
+        if (index < firstIndex || index >= firstIndex + count) {
+            return null;
+        }
+        String line = cache.get(index);
+        if (line != null) {
+            return line;
+        }
+
+        int slot = (int) (index - firstIndex);
+        long start = offsets[(head + slot) % offsets.length];
+        long end = slot + 1 < count ? offsets[(head + slot + 1) % offsets.length] : writePosition;
+        line = new String(read(start, (int) (end - start - 1)), StandardCharsets.UTF_8);
+        cache.put(index, line);
+        return line;
+    }
+
+    /**
+     * Visits every retained line in order, reading the file sequentially in large blocks rather
+     * than line by line.
+     */
+    public synchronized void forEachLine(ObjLongConsumer<String> visitor) {
+        flush();
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        long blockStart = 0;
+        for (int slot = 0; slot < count; slot++) {
+            long start = offsets[(head + slot) % offsets.length];
+            long end = slot + 1 < count ? offsets[(head + slot + 1) % offsets.length] : writePosition;
+            int length = (int) (end - start - 1);
+            String line;
+            // A block stops at the end of its segment, so the next segment's lines refill it
+            if (end - start > SCAN_BLOCK_SIZE) {
+                line = new String(read(start, length), StandardCharsets.UTF_8);
+            } else {
+                if (slot == 0 || end > blockStart + block.limit()) {
+                    blockStart = start;
+                    fill(block, start);
+                }
+                line = new String(block.array(), (int) (start - blockStart), length, StandardCharsets.UTF_8);
+            }
+            visitor.accept(line, firstIndex + slot);
+        }
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        firstIndex += count;
+        head = 0;
+        count = 0;
+        maxLineLength = 0;
+        writeBuffer.clear();
+        writePosition = 0;
+        flushedPosition = 0;
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        try {
+            segments.add(new Segment(0));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+    }
+
+    private void grow() {
+        long[] grown = new long[offsets.length * 2];
+        for (int i = 0; i < count; i++) {
+            grown[i] = offsets[(head + i) % offsets.length];
+        }
+        offsets = grown;
+        head = 0;
+    }
+
+    private void dropOldest(int lines) {
+        for (int i = 0; i < lines; i++) {
+            cache.remove(firstIndex + i);
+        }
+        head = (head + lines) % offsets.length;
+        count -= lines;
+        firstIndex += lines;
+        dropDeadSegments();
+    }
+
+    // Deletes the segments before the one holding the oldest retained line
+    private void dropDeadSegments() {
+        long firstLive = count > 0 ? offsets[head] : writePosition;
+        while (segments.size() > 1 && segments.get(1).start <= firstLive) {
+            segments.remove(0).delete();
+        }
+    }
+
+    private void startSegment() {
+        flush();
+        try {
+            segments.add(new Segment(writePosition));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Segment currentSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    // The segment holding the byte at the position; segments are few, newest are read most
+    private Segment segmentAt(long position) {
+        for (int i = segments.size() - 1; i > 0; i--) {
+            if (segments.get(i).start <= position) {
+                return segments.get(i);
+            }
+        }
+        return segments.get(0);
+    }
+
+    private void write(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!writeBuffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(bytes.length - offset, writeBuffer.remaining());
+            writeBuffer.put(bytes, offset, length);
+            offset += length;
+        }
+        writePosition += bytes.length;
+    }
+
+    private void flush() {
+        writeBuffer.flip();
+        Segment segment = currentSegment();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                flushedPosition += segment.channel.write(writeBuffer, flushedPosition - segment.start);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writeBuffer.clear();
+    }
+
+    private void fill(ByteBuffer block, long position) {
+        block.clear();
+        Segment segment = segmentAt(position);
+        try {
+            while (block.hasRemaining()) {
+                if (segment.channel.read(block, position - segment.start + block.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        block.flip();
+    }
+
+    private byte[] read(long position, int length) {
+        if (position + length > flushedPosition) {
+            flush();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        Segment segment = segmentAt(position);
+        try {
+            while (buffer.hasRemaining()) {
+                int read = segment.channel.read(buffer, position - segment.start + buffer.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * One temporary file of the store, holding the lines from position start on.
+     */
+    private static class Segment {
+        final long start;
+        final File file;
+        final FileChannel channel;
+
+        Segment(long start) throws IOException {
+            this.start = start;
+            this.file = File.createTempFile("kubectl-log-", ".buf");
+            file.deleteOnExit();
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void delete() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            file.delete();
+        }
+    }
+}
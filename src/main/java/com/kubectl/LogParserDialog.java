@@ -9,14 +9,21 @@ import java.util.List;
 import java.util.prefs.Preferences;
 import com.kubectl.logParser.LogParser;
 import com.kubectl.logParser.LogParser.SearchGroup;
+import com.kubectl.logParser.SearchTask;
 
 public class LogParserDialog extends JDialog {
     private final JTextArea resultArea;
+    private final LogLineBatcher resultBatcher;
     private final List<SearchGroupPanel> searchGroupPanels;
     private final JPanel searchGroupsContainer;
     private final String logFilePath;
     private final LogParser logParser;
     private final JCheckBox includeAfterMatchCheckbox;
+    private final JButton searchButton;
+    private final JButton cancelButton;
+    private final JLabel statusLabel;
+    private final Timer progressTimer;
+    private SearchTask currentSearch;
     private final Preferences prefs;
     private static final String LAST_EXPORT_PATH = "lastExportPath";
 
@@ -63,20 +70,32 @@ public class LogParserDialog extends JDialog {
         resultArea = new JTextArea();
         resultArea.setEditable(false);
         resultArea.setFont(new Font("Monospace", Font.PLAIN, 12));
+        resultBatcher = new LogLineBatcher(lines -> resultArea.append(String.join("\n", lines) + "\n"));
         JScrollPane scrollPane = new JScrollPane(resultArea);
         resultsPanel.add(scrollPane, BorderLayout.CENTER);
+        statusLabel = new JLabel(" ");
+        resultsPanel.add(statusLabel, BorderLayout.SOUTH);
+        progressTimer = new Timer(250, e -> {
+            if (currentSearch != null) {
+                statusLabel.setText(currentSearch.describeProgress());
+            }
+        });
 
         // Create button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        JButton searchButton = new JButton("Search");
+        searchButton = new JButton("Search");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
         JButton exportButton = new JButton("Export Results");
         JButton closeButton = new JButton("Close");
 
         searchButton.addActionListener(e -> performSearch());
+        cancelButton.addActionListener(e -> cancelSearch());
         exportButton.addActionListener(e -> exportResults());
         closeButton.addActionListener(e -> dispose());
 
         buttonPanel.add(searchButton);
+        buttonPanel.add(cancelButton);
         buttonPanel.add(exportButton);
         buttonPanel.add(closeButton);
 
@@ -111,7 +130,45 @@ public class LogParserDialog extends JDialog {
             }
         }
 
-        logParser.searchInLogFile(logFilePath, searchGroups, resultArea, includeAfterMatchCheckbox.isSelected());
+        boolean includeAfter = includeAfterMatchCheckbox.isSelected();
+        searchButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        resultArea.setText(LogParser.formatHeader(logFilePath, searchGroups, includeAfter));
+        resultBatcher.clear();
+        resultBatcher.start();
+
+        // Runs off the EDT so the dialog stays responsive and the search can be cancelled
+        SearchTask task = logParser.startSearch(logFilePath, searchGroups, includeAfter, match -> resultBatcher.add(match.toString()));
+        currentSearch = task;
+        progressTimer.start();
+        task.getResult().whenComplete((count, error) ->
+                SwingUtilities.invokeLater(() -> searchFinished(task, count, error)));
+    }
+
+    private void searchFinished(SearchTask task, Integer matchCount, Throwable error) {
+        progressTimer.stop();
+        // The outcome goes after the last results, which may take a few frames to arrive
+        resultBatcher.stop(() -> resultArea.append(LogParser.formatOutcome(task, logFilePath, matchCount, error)));
+        statusLabel.setText(task.describeProgress() + " in " + task.getElapsedMillis() + " ms");
+        if (currentSearch == task) {
+            currentSearch = null;
+        }
+        searchButton.setEnabled(true);
+        cancelButton.setEnabled(false);
+    }
+
+    private void cancelSearch() {
+        if (currentSearch != null) {
+            currentSearch.cancel();
+            cancelButton.setEnabled(false);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        cancelSearch();
+        progressTimer.stop();
+        super.dispose();
     }
 
     private void exportResults() {
@@ -1,34 +1,32 @@
 package com.kubectl;
 
-import java.util.regex.Pattern;
+import com.kubectl.logParser.LogParser;
 
+/**
+ * A search criterion in the log viewer's search dialog. Criteria are evaluated as
+ * {@link LogParser.SearchGroup}s, so the viewer and the log parser agree on results.
+ */
 public class LogSearchCriteria {
     private final String text;
     private final String operation;
     private final boolean caseSensitive;
     private final boolean useRegex;
-    private Pattern pattern;
+    private final LogParser.SearchGroup searchGroup;
 
     public LogSearchCriteria(String text, String operation, boolean caseSensitive, boolean useRegex) {
         this.text = text;
         this.operation = operation;
         this.caseSensitive = caseSensitive;
         this.useRegex = useRegex;
-
-        if (useRegex) {
-            int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
-            pattern = Pattern.compile(text, flags);
-        }
+        this.searchGroup = new LogParser.SearchGroup(text, operation, caseSensitive, useRegex);
     }
 
     public boolean matches(String line) {
-        if (useRegex) {
-            return pattern.matcher(line).find();
-        } else if (caseSensitive) {
-            return line.contains(text);
-        } else {
-            return line.toLowerCase().contains(text.toLowerCase());
-        }
+        return searchGroup.matches(line);
+    }
+
+    public LogParser.SearchGroup toSearchGroup() {
+        return searchGroup;
     }
 
     public String getOperation() {
@@ -0,0 +1,186 @@
+package com.kubectl;
+
+import javax.swing.AbstractListModel;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * List model over a {@link LogLineStore} for a virtualized {@code JList}: rows are read from
+ * the store only when the list paints them. A search filter is kept as a list of matching line
+ * indexes into the same store, so resetting a search needs no second copy of the log.
+ * Must be used from the EDT.
+ */
+public class LogViewModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+
+    private final LogLineStore store;
+
+    // Absolute indexes of the visible lines while a filter is active
+    private Predicate<String> filter;
+    private boolean includeNextLine;
+    private boolean previousMatched;
+    private long[] filtered = new long[1024];
+    private int filteredHead;
+    private int filteredCount;
+
+    public LogViewModel(LogLineStore store) {
+        this.store = store;
+    }
+
+    public LogLineStore getStore() {
+        return store;
+    }
+
+    @Override
+    public int getSize() {
+        return filter != null ? filteredCount : store.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String line = store.getLine(lineIndexAt(index));
+        return line != null ? line : "";
+    }
+
+    public void setMaxLines(int maxLines) {
+        int before = getSize();
+        store.setMaxLines(maxLines);
+        pruneFiltered();
+        fireRemovedFromTop(before - getSize());
+    }
+
+    public void appendLines(List<String> lines) {
+        int before = getSize();
+        int added = 0;
+        for (String line : lines) {
+            long index = store.getEndIndex();
+            store.append(line);
+            if (filter == null) {
+                added++;
+            } else if (accept(line)) {
+                addFiltered(index);
+                added++;
+            }
+        }
+        pruneFiltered();
+
+        int removed = before + added - getSize();
+        fireRemovedFromTop(removed);
+        if (added > 0) {
+            int size = getSize();
+            fireIntervalAdded(this, size - Math.min(added, size), size - 1);
+        }
+    }
+
+    public void clear() {
+        int before = getSize();
+        store.clear();
+        previousMatched = false;
+        filteredHead = 0;
+        filteredCount = 0;
+        if (before > 0) {
+            fireIntervalRemoved(this, 0, before - 1);
+        }
+    }
+
+    /**
+     * Shows only the lines accepted by the matcher (plus the line following each match when
+     * includeNextLine is set). Lines appended later are filtered the same way.
+     * Returns the number of visible lines.
+     */
+    public int applyFilter(Predicate<String> matcher, boolean includeNextLine) {
+        int before = getSize();
+        this.filter = matcher;
+        this.includeNextLine = includeNextLine;
+        this.previousMatched = false;
+        filteredHead = 0;
+        filteredCount = 0;
+        store.forEachLine((line, index) -> {
+            if (accept(line)) {
+                addFiltered(index);
+            }
+        });
+        fireContentsReplaced(before);
+        return filteredCount;
+    }
+
+    public void clearFilter() {
+        int before = getSize();
+        filter = null;
+        filteredHead = 0;
+        filteredCount = 0;
+        fireContentsReplaced(before);
+    }
+
+    public boolean isFiltered() {
+        return filter != null;
+    }
+
+    /**
+     * Writes the visible lines, streaming them from the store.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        int size = getSize();
+        for (int i = 0; i < size; i++) {
+            writer.write(getElementAt(i));
+            writer.write('\n');
+        }
+    }
+
+    private boolean accept(String line) {
+        boolean matches = filter.test(line);
+        boolean include = matches || previousMatched;
+        previousMatched = includeNextLine && matches;
+        return include;
+    }
+
+    private long lineIndexAt(int row) {
+        if (filter == null) {
+            return store.getFirstIndex() + row;
+        }
+        return filtered[(filteredHead + row) % filtered.length];
+    }
+
+    private void addFiltered(long index) {
+        if (filteredCount == filtered.length) {
+            long[] grown = new long[filtered.length * 2];
+            for (int i = 0; i < filteredCount; i++) {
+                grown[i] = filtered[(filteredHead + i) % filtered.length];
+            }
+            filtered = grown;
+            filteredHead = 0;
+        }
+        filtered[(filteredHead + filteredCount) % filtered.length] = index;
+        filteredCount++;
+    }
+
+    // Drops filter entries for lines the store no longer retains
+    private void pruneFiltered() {
+        long first = store.getFirstIndex();
+        while (filteredCount > 0 && filtered[filteredHead] < first) {
+            filteredHead = (filteredHead + 1) % filtered.length;
+            filteredCount--;
+        }
+        if (filteredCount == 0) {
+            filteredHead = 0;
+        }
+    }
+
+    private void fireRemovedFromTop(int removed) {
+        if (removed > 0) {
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+    }
+
+    private void fireContentsReplaced(int before) {
+        if (before > 0) {
+            fireIntervalRemoved(this, 0, before - 1);
+        }
+        int size = getSize();
+        if (size > 0) {
+            fireIntervalAdded(this, 0, size - 1);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.kubectl;
+
+import com.kubectl.logParser.LogTimestamps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Fetches the logs of several pods at once and merges them into one stream in timestamp
+ * order, each line prefixed with its pod's name. All pods' {@code kubectl logs --timestamps}
+ * commands run concurrently over the one SSH session, so the whole fetch takes about as long
+ * as the slowest pod. That needs a channel per pod, so callers keep the number of pods within
+ * {@link SSHConnection#getMaxConcurrentStreams()}; pods beyond it would only start as others
+ * finish.
+ *
+ * Each pod's lines are spooled to its own {@link LogLineStore} as they arrive (the SSH
+ * session thread must never block), and a merge thread repeatedly emits the earliest head
+ * line. A line can only be emitted once every pod still streaming has a line queued, since
+ * that pod's next line might be earlier; lines with equal timestamps keep the pod order given.
+ */
+public class MultiPodLogFetcher {
+    // How long the merge thread sleeps when waiting for a pod's next line, in case a wakeup
+    // is missed
+    private static final long MERGE_WAIT_MILLIS = 50;
+
+    private final SSHConnection sshConnection;
+    private final List<PodStream> pods = new ArrayList<>();
+    private final Consumer<String> lineConsumer;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private final Map<String, Throwable> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Object lock = new Object();
+    private volatile boolean cancelled;
+
+    public MultiPodLogFetcher(SSHConnection sshConnection, List<String> podNames, Consumer<String> lineConsumer) {
+        this.sshConnection = sshConnection;
+        this.lineConsumer = lineConsumer;
+        for (String podName : podNames) {
+            pods.add(new PodStream(podName));
+        }
+    }
+
+    /**
+     * Starts fetching. Merged lines are passed to the consumer on a background thread. The
+     * returned future completes once every pod's log has been fetched and merged; pods whose
+     * fetch failed are listed in {@link #getFailures()} and the others are still merged.
+     */
+    public CompletableFuture<Void> start() {
+        for (PodStream pod : pods) {
+            try {
+                pod.store = new LogLineStore();
+            } catch (IOException e) {
+                closeStores();
+                result.completeExceptionally(e);
+                return result;
+            }
+        }
+        for (PodStream pod : pods) {
+            pod.stream = sshConnection.streamCommandAsync(
+                    String.format("kubectl logs --timestamps %s", pod.name), line -> {
+                        if (!cancelled) {
+                            pod.store.append(line);
+                            wakeMerger();
+                        }
+                    });
+            pod.stream.whenComplete((v, error) -> {
+                if (error != null && !cancelled) {
+                    failures.put(pod.name, error);
+                }
+                pod.done = true;
+                wakeMerger();
+            });
+        }
+
+        Thread merger = new Thread(this::merge, "multi-pod-merge");
+        merger.setDaemon(true);
+        merger.start();
+        return result;
+    }
+
+    /**
+     * Stops all the pods' fetches; the future completes with a CancellationException.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (PodStream pod : pods) {
+            if (pod.stream != null) {
+                pod.stream.cancel(true);
+            }
+        }
+        wakeMerger();
+    }
+
+    /**
+     * Pods whose fetch failed, with the error, once the fetch is done.
+     */
+    public Map<String, Throwable> getFailures() {
+        synchronized (failures) {
+            return new LinkedHashMap<>(failures);
+        }
+    }
+
+    public int getPodCount() {
+        return pods.size();
+    }
+
+    private void merge() {
+        try {
+            while (!cancelled) {
+                PodStream earliest = null;
+                boolean waiting = false;
+                for (PodStream pod : pods) {
+                    // Read before looking for lines: once done is seen, every line is in the store
+                    boolean done = pod.done;
+                    if (pod.head == null && !pod.readHead()) {
+                        waiting |= !done;
+                        continue;
+                    }
+                    if (earliest == null || pod.headTimestamp < earliest.headTimestamp) {
+                        earliest = pod;
+                    }
+                }
+                if (waiting) {
+                    awaitLines();
+                } else if (earliest == null) {
+                    break;
+                } else {
+                    lineConsumer.accept(earliest.name + " | " + earliest.head);
+                    earliest.head = null;
+                }
+            }
+            if (cancelled) {
+                result.completeExceptionally(new CancellationException("Fetch cancelled"));
+            } else {
+                result.complete(null);
+            }
+        } catch (RuntimeException e) {
+            cancel();
+            result.completeExceptionally(e);
+        } finally {
+            closeStores();
+        }
+    }
+
+    private void awaitLines() {
+        synchronized (lock) {
+            try {
+                lock.wait(MERGE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+    }
+
+    private void wakeMerger() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    private void closeStores() {
+        for (PodStream pod : pods) {
+            if (pod.store != null) {
+                pod.store.close();
+            }
+        }
+    }
+
+    private static class PodStream {
+        final String name;
+        LogLineStore store;
+        CompletableFuture<Void> stream;
+        volatile boolean done;
+
+        // Next index to read from the store, and the line read there (without its timestamp)
+        long next;
+        String head;
+        long headTimestamp = LogTimestamps.NONE;
+
+        PodStream(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Reads the next spooled line into head, returning false if there is none yet. Lines
+         * without a timestamp keep the previous line's so they stay in place.
+         */
+        boolean readHead() {
+            if (next >= store.getEndIndex()) {
+                return false;
+            }
+            String line = store.getLine(next++);
+            long timestamp = LogTimestamps.parse(line);
+            int space = line.indexOf(' ');
+            if (timestamp != LogTimestamps.NONE && space > 0) {
+                headTimestamp = timestamp;
+                head = line.substring(space + 1);
+            } else {
+                head = line;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.kubectl;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows a pod's log with {@code kubectl logs -f}. Lines are requested with timestamps so
+ * that when the stream ends (container restart, idle timeout on the API server, dropped
+ * channel) it can be resumed with {@code --since-time} without losing or repeating lines.
+ * If the SSH session itself drops, the watch resumes once the connection has reconnected.
+ *
+ * A stream that ends cleanly without a new line, as it does at once for a pod whose container
+ * has terminated, is resumed after a delay that doubles each time, up to
+ * {@link #MAX_RESUME_DELAY_MILLIS}, so a finished pod is not polled every second.
+ */
+public class PodLogWatcher {
+    private static final int INITIAL_TAIL_LINES = 50;
+    private static final long RESUME_DELAY_MILLIS = 1000;
+    private static final long MAX_RESUME_DELAY_MILLIS = 60_000;
+
+    private final SSHConnection sshConnection;
+    private final String podName;
+    private final Consumer<String> lineConsumer;
+    private final Consumer<Throwable> errorHandler;
+    private volatile boolean running;
+
+    // Timestamp of the last line delivered and how many lines carried exactly that timestamp,
+    // used to drop the overlap that --since-time returns on resume. Timestamps are compared as
+    // instants, since RFC 3339 drops trailing zeros from the fraction and so does not sort as text.
+    private String lastTimestamp;
+    private Instant lastInstant;
+    private int linesAtLastTimestamp;
+    private Instant resumeInstant;
+    private int linesToSkip;
+    // Lines delivered by the current stream, and the delay before resuming after one that
+    // ended without any
+    private int linesSinceResume;
+    private long resumeDelayMillis = RESUME_DELAY_MILLIS;
+
+    public PodLogWatcher(SSHConnection sshConnection, String podName,
+                         Consumer<String> lineConsumer, Consumer<Throwable> errorHandler) {
+        this.sshConnection = sshConnection;
+        this.podName = podName;
+        this.lineConsumer = lineConsumer;
+        this.errorHandler = errorHandler;
+    }
+
+    public void start() {
+        running = true;
+        follow(String.format("kubectl logs -f --timestamps --tail=%d %s", INITIAL_TAIL_LINES, podName));
+    }
+
+    public void stop() {
+        running = false;
+        sshConnection.stopWatchingLogs();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getPodName() {
+        return podName;
+    }
+
+    private void follow(String command) {
+        sshConnection.startWatchingLogs(command, this::onLine).whenComplete((v, error) -> {
+            if (!running) {
+                return;
+            }
+            if (error != null && SSHConnection.isConnectionLoss(error)) {
+                CompletableFuture.delayedExecutor(RESUME_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(() ->
+                        sshConnection.awaitConnection().whenComplete((connected, reconnectError) -> {
+                            if (reconnectError != null) {
+                                fail(reconnectError);
+                            } else {
+                                resume();
+                            }
+                        }));
+                return;
+            }
+            if (error != null) {
+                fail(error);
+                return;
+            }
+            CompletableFuture.runAsync(this::resume,
+                    CompletableFuture.delayedExecutor(nextResumeDelay(), TimeUnit.MILLISECONDS));
+        });
+    }
+
+    private synchronized long nextResumeDelay() {
+        if (linesSinceResume > 0) {
+            resumeDelayMillis = RESUME_DELAY_MILLIS;
+            return resumeDelayMillis;
+        }
+        long delay = resumeDelayMillis;
+        resumeDelayMillis = Math.min(resumeDelayMillis * 2, MAX_RESUME_DELAY_MILLIS);
+        return delay;
+    }
+
+    private void fail(Throwable error) {
+        if (running) {
+            running = false;
+            errorHandler.accept(error);
+        }
+    }
+
+    private synchronized void resume() {
+        if (!running) {
+            return;
+        }
+        linesSinceResume = 0;
+        if (lastTimestamp == null) {
+            start();
+            return;
+        }
+        resumeInstant = lastInstant;
+        linesToSkip = linesAtLastTimestamp;
+        follow(String.format("kubectl logs -f --timestamps --since-time=%s %s", lastTimestamp, podName));
+    }
+
+    private synchronized void onLine(String line) {
+        int space = line.indexOf(' ');
+        if (space <= 0 || !Character.isDigit(line.charAt(0))) {
+            lineConsumer.accept(line);
+            return;
+        }
+
+        String timestamp = line.substring(0, space);
+        Instant instant;
+        try {
+            instant = Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            lineConsumer.accept(line);
+            return;
+        }
+        if (resumeInstant != null) {
+            int order = instant.compareTo(resumeInstant);
+            if (order < 0 || (order == 0 && linesToSkip-- > 0)) {
+                return;
+            }
+            resumeInstant = null;
+        }
+
+        if (instant.equals(lastInstant)) {
+            linesAtLastTimestamp++;
+        } else {
+            lastTimestamp = timestamp;
+            lastInstant = instant;
+            linesAtLastTimestamp = 1;
+        }
+        linesSinceResume++;
+        lineConsumer.accept(line.substring(space + 1));
+    }
+}
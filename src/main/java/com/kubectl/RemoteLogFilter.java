@@ -0,0 +1,171 @@
+package com.kubectl;
+
+import com.kubectl.logParser.LogParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Translates search criteria into a grep or awk filter that runs on the server, after
+ * {@code kubectl logs}, so only candidate lines cross the SSH connection.
+ *
+ * The remote filter only has to pass every line the criteria match; it may pass a few more,
+ * so the lines it returns are still filtered locally with the exact criteria. Literal criteria
+ * translate directly. A regex is pushed down as the literals that every match must contain
+ * (see {@link LogParser.SearchGroup#getRequiredLiterals()}), which avoids translating between
+ * Java and POSIX regex dialects. Criteria that cannot be translated, such as a regex with no
+ * required literal or a case-insensitive non-ASCII text, are left to the local filter; if
+ * that leaves nothing to filter on, there is no remote filter at all.
+ *
+ * Filters run with LC_ALL=C, so matching is on bytes and case folding is ASCII-only, the same
+ * as the log parser's byte-level search.
+ */
+public class RemoteLogFilter {
+    private final String filter;
+
+    private RemoteLogFilter(String filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Builds the filter for the criteria, or returns null if none of them can be checked on the
+     * server. With includeNextLine, the line following each candidate is passed as well.
+     */
+    public static RemoteLogFilter of(List<LogParser.SearchGroup> groups, boolean includeNextLine) {
+        // OR of AND terms, as in CompiledSearch; each group becomes the literals it needs
+        List<List<Literals>> terms = new ArrayList<>();
+        List<Literals> term = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            LogParser.SearchGroup group = groups.get(i);
+            if (i > 0 && !"AND".equals(group.getOperation())) {
+                terms.add(term);
+                term = new ArrayList<>();
+            }
+            Literals literals = Literals.of(group);
+            if (literals != null) {
+                term.add(literals);
+            }
+        }
+        terms.add(term);
+        // A term whose groups all stay local can pass any line, and so can the whole filter
+        if (terms.stream().anyMatch(List::isEmpty)) {
+            return null;
+        }
+
+        String grep = toGrep(terms, includeNextLine);
+        return new RemoteLogFilter(grep != null ? grep : toAwk(terms, includeNextLine));
+    }
+
+    /**
+     * Appends the filter to a command that writes a log to stdout.
+     */
+    public String apply(String command) {
+        return command + " | " + filter;
+    }
+
+    @Override
+    public String toString() {
+        return filter;
+    }
+
+    // grep -F handles the common case of literals joined by OR, and is much faster than awk
+    private static String toGrep(List<List<Literals>> terms, boolean includeNextLine) {
+        if (includeNextLine) {
+            return null;
+        }
+        Boolean caseSensitive = null;
+        StringBuilder patterns = new StringBuilder();
+        for (List<Literals> term : terms) {
+            if (term.size() != 1 || (caseSensitive != null && caseSensitive != term.get(0).caseSensitive)) {
+                return null;
+            }
+            caseSensitive = term.get(0).caseSensitive;
+            for (String literal : term.get(0).anyOf) {
+                patterns.append(" -e ").append(shellQuote(literal));
+            }
+        }
+        // grep exits with 1 when no line matches, which is not a failure here
+        return "{ LC_ALL=C grep -F" + (caseSensitive ? "" : " -i") + patterns + " || [ $? -eq 1 ]; }";
+    }
+
+    private static String toAwk(List<List<Literals>> terms, boolean includeNextLine) {
+        boolean lowercase = false;
+        StringBuilder condition = new StringBuilder();
+        for (List<Literals> term : terms) {
+            if (condition.length() > 0) {
+                condition.append(" || ");
+            }
+            condition.append('(');
+            for (int i = 0; i < term.size(); i++) {
+                Literals literals = term.get(i);
+                lowercase |= !literals.caseSensitive;
+                condition.append(i > 0 ? " && (" : "(");
+                for (int j = 0; j < literals.anyOf.size(); j++) {
+                    condition.append(j > 0 ? " || " : "")
+                            .append("index(").append(literals.caseSensitive ? "$0" : "l").append(", ")
+                            .append(awkString(literals.anyOf.get(j))).append(')');
+                }
+                condition.append(')');
+            }
+            condition.append(')');
+        }
+
+        StringBuilder program = new StringBuilder();
+        if (lowercase) {
+            program.append("{ l = tolower($0) } ");
+        }
+        if (includeNextLine) {
+            program.append("{ m = ").append(condition).append(" } m || p { print } { p = m }");
+        } else {
+            program.append(condition).append(" { print }");
+        }
+        return "LC_ALL=C awk " + shellQuote(program.toString());
+    }
+
+    private static String awkString(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String shellQuote(String text) {
+        return "'" + text.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Literals of which a matching line contains at least one.
+     */
+    private static class Literals {
+        final List<String> anyOf;
+        final boolean caseSensitive;
+
+        private Literals(List<String> anyOf, boolean caseSensitive) {
+            this.anyOf = anyOf;
+            this.caseSensitive = caseSensitive;
+        }
+
+        // Returns null if the group cannot be checked on the server
+        static Literals of(LogParser.SearchGroup group) {
+            List<String> required = group.getRequiredLiterals();
+            if (required == null || required.isEmpty()) {
+                return null;
+            }
+            List<String> anyOf = new ArrayList<>();
+            for (String literal : required) {
+                if (literal.isEmpty() || (!group.isCaseSensitive() && !isAscii(literal))) {
+                    return null;
+                }
+                anyOf.add(group.isCaseSensitive() ? literal : literal.toLowerCase(Locale.ROOT));
+            }
+            return new Literals(anyOf, group.isCaseSensitive());
+        }
+
+        private static boolean isAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) >= 128) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
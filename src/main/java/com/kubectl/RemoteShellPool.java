@@ -0,0 +1,344 @@
+package com.kubectl;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A few long-lived {@code bash -l} processes on the jump host that run commands one after
+ * another, so each command pays only for its own runtime rather than for a login shell
+ * reading the profile scripts (hundreds of milliseconds on some hosts).
+ *
+ * Each command is written to the shell's stdin as {@code ( eval '<command>' ) < /dev/null},
+ * followed by a line with a random marker and the exit status, printed to stdout and stderr.
+ * The subshell keeps the command from changing the shell's state or reading its stdin, and
+ * eval turns a syntax error into a failed command rather than a stuck shell. Output up to the
+ * marker is the command's. As for exec channels, a command fails if it wrote to stderr or
+ * exited with a non-zero status, so results are the same with or without the pool.
+ *
+ * At most {@code size} commands run at once, one per shell; the rest wait their turn. A shell
+ * goes back to the pool only once its command's output has been read to the marker. One whose
+ * command is cancelled, times out or fails otherwise is closed, since the command may still be
+ * running in it, and a new one is started when needed.
+ */
+public class RemoteShellPool {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Supplier<Session> sessionSupplier;
+    private final Consumer<ChannelExec> channelSetup;
+    private final AtomicLong receivedBytes;
+    private final CommandExecutor executor;
+    private final ConcurrentLinkedDeque<Shell> idle = new ConcurrentLinkedDeque<>();
+    private final int size;
+    private volatile boolean closed;
+
+    /**
+     * @param sessionSupplier the session new shells are opened on
+     * @param channelSetup    applied to each shell's channel before it is connected
+     * @param receivedBytes   incremented by the size of each command's output
+     */
+    public RemoteShellPool(int size, Supplier<Session> sessionSupplier, Consumer<ChannelExec> channelSetup,
+                           AtomicLong receivedBytes) {
+        this.size = size;
+        this.sessionSupplier = sessionSupplier;
+        this.channelSetup = channelSetup;
+        this.receivedBytes = receivedBytes;
+        this.executor = new CommandExecutor(size);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Queues a command for the next free shell, with the same timeout and cancellation
+     * behaviour as {@link CommandExecutor#submit}. The supplier should call {@link #run}.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> command, long timeout, TimeUnit unit) {
+        return executor.submit(command, timeout, unit);
+    }
+
+    /**
+     * Runs a command on an idle shell, starting one if there is none. Only call this from a
+     * command given to {@link #submit}, which keeps the number of busy shells within the pool size.
+     *
+     * The returned future is separate from the shell's, so completing it from outside, as the
+     * executor's timeout does, leaves the shell's own result pending and the shell is closed.
+     */
+    public CompletableFuture<String> run(String command) {
+        Shell shell;
+        try {
+            shell = acquire();
+        } catch (JSchException | IOException e) {
+            return CompletableFuture.failedFuture(new SSHConnection.ConnectionLostException("Could not start a shell", e));
+        }
+        CompletableFuture<String> frame = shell.run(command);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        frame.whenComplete((output, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(output);
+            }
+        });
+        result.whenComplete((output, error) -> {
+            // Unless the shell got to the marker, the command may still be running in it
+            if (closed || !frame.isDone() || !shell.isUsable()) {
+                shell.close();
+            } else {
+                idle.push(shell);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Closes every shell; commands still running fail.
+     */
+    public void close() {
+        closed = true;
+        Shell shell;
+        while ((shell = idle.poll()) != null) {
+            shell.close();
+        }
+    }
+
+    private Shell acquire() throws JSchException, IOException {
+        Shell shell;
+        while ((shell = idle.poll()) != null) {
+            if (shell.isUsable()) {
+                return shell;
+            }
+            shell.close();
+        }
+        if (closed) {
+            throw new IOException("Shell pool is closed");
+        }
+        return new Shell(sessionSupplier.get(), channelSetup, receivedBytes);
+    }
+
+    /**
+     * One {@code bash -l} running commands read from its stdin.
+     */
+    private static class Shell {
+        private final ChannelExec channel;
+        private final OutputStream stdin;
+        private final String marker;
+        private final AtomicLong receivedBytes;
+        private final FrameStream stdout;
+        private final FrameStream stderr;
+        private CompletableFuture<String> current;
+        private byte[] output;
+        private byte[] error;
+        private int status;
+        // Set while starting, when whatever the profile scripts print is dropped
+        private volatile boolean starting = true;
+        private volatile boolean broken;
+
+        Shell(Session session, Consumer<ChannelExec> channelSetup, AtomicLong receivedBytes) throws JSchException, IOException {
+            byte[] random = new byte[12];
+            RANDOM.nextBytes(random);
+            StringBuilder hex = new StringBuilder("__klx_");
+            for (byte b : random) {
+                hex.append(String.format("%02x", b));
+            }
+            this.marker = hex.toString();
+            this.receivedBytes = receivedBytes;
+            this.stdout = new FrameStream(marker, (content, status) -> onFrame(content, status, true), this::onClosed);
+            this.stderr = new FrameStream(marker, (content, status) -> onFrame(content, status, false), this::onClosed);
+
+            channel = (ChannelExec) session.openChannel("exec");
+            channelSetup.accept(channel);
+            channel.setCommand("bash -l");
+            channel.setOutputStream(stdout);
+            channel.setErrStream(stderr);
+            stdin = channel.getOutputStream();
+            channel.connect();
+            try {
+                run("true").get(30, TimeUnit.SECONDS);
+                starting = false;
+            } catch (Exception e) {
+                close();
+                throw new IOException("Shell did not start: " + e.getMessage(), e);
+            }
+        }
+
+        boolean isUsable() {
+            return !broken && channel.isConnected();
+        }
+
+        synchronized CompletableFuture<String> run(String command) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            current = result;
+            output = null;
+            error = null;
+            String framed = "( eval '" + command.replace("'", "'\\''") + "' ) < /dev/null\n"
+                    + "__klx_status=$?\n"
+                    + "printf '\\n%s:%d\\n' " + marker + " \"$__klx_status\"\n"
+                    + "printf '\\n%s:%d\\n' " + marker + " \"$__klx_status\" >&2\n";
+            try {
+                stdin.write(framed.getBytes(StandardCharsets.UTF_8));
+                stdin.flush();
+            } catch (IOException e) {
+                broken = true;
+                current = null;
+                result.completeExceptionally(new SSHConnection.ConnectionLostException("Shell closed", e));
+            }
+            return result;
+        }
+
+        private void onFrame(byte[] content, int exitStatus, boolean isOutput) {
+            CompletableFuture<String> result;
+            synchronized (this) {
+                if (isOutput) {
+                    output = content;
+                    status = exitStatus;
+                } else {
+                    error = content;
+                }
+                if (output == null || error == null || current == null) {
+                    return;
+                }
+                result = current;
+                current = null;
+            }
+            receivedBytes.addAndGet(output.length);
+            if (error.length > 0 && !starting) {
+                result.completeExceptionally(new IOException(new String(error, StandardCharsets.UTF_8)));
+            } else if (status != 0 && !starting) {
+                result.completeExceptionally(new IOException("Command exited with status " + status));
+            } else {
+                result.complete(new String(output, StandardCharsets.UTF_8));
+            }
+        }
+
+        private void onClosed() {
+            CompletableFuture<String> result;
+            synchronized (this) {
+                broken = true;
+                result = current;
+                current = null;
+            }
+            if (result != null) {
+                result.completeExceptionally(
+                        new SSHConnection.ConnectionLostException("Shell closed before the command completed"));
+            }
+        }
+
+        void close() {
+            broken = true;
+            channel.disconnect();
+            onClosed();
+        }
+    }
+
+    /**
+     * Collects one of the shell's output streams and cuts it into frames at each
+     * "\n&lt;marker&gt;:&lt;status&gt;\n" line, passing each frame on with the status. The
+     * newline before the marker is the one the frame adds, so the frame holds the command's
+     * output exactly.
+     */
+    private static class FrameStream extends OutputStream {
+        private final byte[] terminator;
+        private final ObjIntConsumer<byte[]> frameConsumer;
+        private final Runnable onClose;
+        private byte[] buffer = new byte[8192];
+        private int length;
+        // Where to resume looking for the terminator
+        private int searchFrom;
+
+        FrameStream(String marker, ObjIntConsumer<byte[]> frameConsumer, Runnable onClose) {
+            this.terminator = ("\n" + marker + ":").getBytes(StandardCharsets.US_ASCII);
+            this.frameConsumer = frameConsumer;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (length + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + len));
+            }
+            System.arraycopy(b, off, buffer, length, len);
+            length += len;
+            while (nextFrame()) {
+                // Keep cutting; a write can hold the end of one frame and the start of the next
+            }
+        }
+
+        private boolean nextFrame() {
+            int at = indexOf(terminator, Math.max(0, searchFrom - terminator.length + 1));
+            if (at < 0) {
+                searchFrom = length;
+                return false;
+            }
+            int end = at + terminator.length;
+            while (end < length && buffer[end] != '\n') {
+                end++;
+            }
+            if (end == length) {
+                // The status line is not complete yet
+                searchFrom = at;
+                return false;
+            }
+            byte[] content = Arrays.copyOf(buffer, at);
+            int status = parseStatus(at + terminator.length, end);
+            int rest = length - end - 1;
+            System.arraycopy(buffer, end + 1, buffer, 0, rest);
+            length = rest;
+            searchFrom = 0;
+            frameConsumer.accept(content, status);
+            return true;
+        }
+
+        // The digits between the marker and the newline; a status that does not parse counts as failed
+        private int parseStatus(int from, int to) {
+            if (from == to || to - from > 9) {
+                return -1;
+            }
+            int status = 0;
+            for (int i = from; i < to; i++) {
+                if (buffer[i] < '0' || buffer[i] > '9') {
+                    return -1;
+                }
+                status = status * 10 + (buffer[i] - '0');
+            }
+            return status;
+        }
+
+        private int indexOf(byte[] pattern, int from) {
+            outer:
+            for (int i = from; i <= length - pattern.length; i++) {
+                for (int j = 0; j < pattern.length; j++) {
+                    if (buffer[i + j] != pattern[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() {
+            onClose.run();
+        }
+    }
+}
@@ -2,20 +2,154 @@ package com.kubectl;
 
 import com.jcraft.jsch.*;
 import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * One SSH session to the jump host, shared by all commands.
+ *
+ * The session is kept alive and watched: keepalives are sent while it is idle, so NAT and VPN
+ * gateways don't drop it, and a dead session is noticed within a few missed replies. A lost
+ * session is reconnected in the background with the same credentials, and the environment's
+ * bootstrap command (see {@link #setBootstrapCommand(String)}) is run again before any other
+ * command. Commands issued meanwhile wait for the new session; read-only kubectl commands
+ * that were running when the session dropped are run again, since doing so is harmless.
+ * Streams are not replayed, as their consumer has already seen part of the output; they fail
+ * with a {@link ConnectionLostException} and can resume on their own terms (as
+ * {@link PodLogWatcher} does) once {@link #awaitConnection()} completes.
+ *
+ * Each command normally runs in its own exec channel as {@code bash -l -c}, paying for a login
+ * shell every time. With a shell pool (see {@link #setShellPoolSize(int)}), commands whose
+ * output is collected run in long-lived shells instead; streams keep their own channels, as
+ * they may run for hours.
+ */
 public class SSHConnection {
-    private Session session;
-    private Channel watchChannel;
-    private volatile boolean isWatching;
+    private static final int DEFAULT_MAX_CHANNELS = 8;
+    private static final long COMMAND_TIMEOUT_SECONDS = 120;
+    // The exit status arrives just after end of output; how often to check for it, and how long
+    // to wait before treating a server that never sends one as success
+    private static final long EXIT_STATUS_POLL_MILLIS = 2;
+    private static final long EXIT_STATUS_TIMEOUT_MILLIS = 5000;
+
+    // A keepalive is sent after this long without traffic; after KEEPALIVE_MAX_MISSED
+    // unanswered ones the session is considered dead
+    private static final int KEEPALIVE_SECONDS = Integer.getInteger("kubectl.ssh.keepaliveSeconds", 15);
+    private static final int KEEPALIVE_MAX_MISSED = 3;
+    private static final long HEALTH_CHECK_SECONDS = 10;
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    // Delays between reconnect attempts; the connection is given up after the last one
+    private static final long[] RECONNECT_DELAYS_MILLIS = {0, 1000, 2000, 5000, 10000, 30000};
+    // How often a read-only command is rerun after losing its session, and how long to wait
+    // first so the session's failure has been noticed
+    private static final int MAX_REPLAYS = 2;
+    private static final long REPLAY_DELAY_MILLIS = 500;
+    private static final ScheduledExecutorService MONITOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ssh-session-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Transport tuning for bulk log transfer over slow links; each can be overridden with a
+    // -Dkubectl.ssh.* system property. Plain-text logs compress about 10:1, so compression
+    // (1-9, 0 for none) is on by default; the server may still decline it.
+    private static final int COMPRESSION_LEVEL = Integer.getInteger("kubectl.ssh.compressionLevel", 6);
+    // AES-GCM is authenticated encryption, so it needs no separate MAC pass, and the JDK runs it
+    // on AES-NI. These go first; JSch's other ciphers stay after them for servers without GCM.
+    private static final String PREFERRED_CIPHERS = System.getProperty("kubectl.ssh.ciphers",
+            "aes128-gcm@openssh.com,aes256-gcm@openssh.com");
+    // How much a command's output may be in flight before the server waits for us to
+    // acknowledge it. JSch's 1 MB default caps a link with 200 ms round trips at 5 MB/s.
+    private static final int CHANNEL_WINDOW_SIZE = Integer.getInteger("kubectl.ssh.windowSize", 8 * 1024 * 1024);
+    // 32 KB is the largest packet every SSH server must accept
+    private static final int CHANNEL_PACKET_SIZE = Integer.getInteger("kubectl.ssh.packetSize", 32 * 1024);
+    // Commands that transfer more than this have their throughput logged
+    private static final long LOG_TRANSFER_BYTES = 1024 * 1024;
+    // Persistent shells for short commands; 0 runs every command in a fresh login shell
+    private static final int SHELL_POOL_SIZE = Integer.getInteger("kubectl.ssh.shellPoolSize", 0);
+    // Cleared the first time tuning fails, so a JSch without these methods is reported once
+    private static volatile Method[] channelTuning = channelTuningMethods();
+
+    private final CommandExecutor commandExecutor = new CommandExecutor(DEFAULT_MAX_CHANNELS);
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private int maxChannels = DEFAULT_MAX_CHANNELS;
+    private volatile RemoteShellPool shellPool;
+    private volatile Session session;
+    private CompletableFuture<Void> watchStream;
+
+    // What reconnecting needs; guarded by this
+    private String host;
+    private String username;
+    private String password;
+    private volatile String bootstrapCommand;
+    private volatile ConnectionListener connectionListener;
+    // Incremented by connect and disconnect, so a reconnect started for an earlier connection
+    // can tell it has been superseded
+    private int generation;
+    private volatile boolean connected;
+    private volatile CompletableFuture<Void> reconnecting;
+    private ScheduledFuture<?> healthCheck;
+
+    /**
+     * Told when the session drops and when reconnecting succeeds or is given up. Called on a
+     * background thread.
+     */
+    public interface ConnectionListener {
+        void connectionLost();
+
+        void reconnected();
+
+        void reconnectFailed(Exception error);
+    }
+
+    /**
+     * A command failed because its channel or the whole session went away.
+     */
+    public static class ConnectionLostException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public ConnectionLostException(String message) {
+            super(message);
+        }
+
+        public ConnectionLostException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public SSHConnection() {
+        setShellPoolSize(SHELL_POOL_SIZE);
+    }
 
     public boolean connect(String host, String username, String password) {
         try {
-            JSch jsch = new JSch();
-            session = jsch.getSession(username, host, 22);
-            session.setPassword(password);
-            session.setConfig("StrictHostKeyChecking", "no");
-            session.connect();
+            Session newSession = openSession(host, username, password);
+            synchronized (this) {
+                this.host = host;
+                this.username = username;
+                this.password = password;
+                this.bootstrapCommand = null;
+                generation++;
+                session = newSession;
+                connected = true;
+                if (healthCheck != null) {
+                    healthCheck.cancel(false);
+                }
+                healthCheck = MONITOR.scheduleWithFixedDelay(this::checkHealth,
+                        HEALTH_CHECK_SECONDS, HEALTH_CHECK_SECONDS, TimeUnit.SECONDS);
+            }
             return true;
         } catch (JSchException e) {
             e.printStackTrace();
@@ -23,82 +157,637 @@ public class SSHConnection {
         }
     }
 
+    private static Session openSession(String host, String username, String password) throws JSchException {
+        JSch jsch = new JSch();
+        Session session = jsch.getSession(username, host, 22);
+        session.setPassword(password);
+        session.setConfig("StrictHostKeyChecking", "no");
+        configureTransport(session);
+        session.setServerAliveInterval(KEEPALIVE_SECONDS * 1000);
+        session.setServerAliveCountMax(KEEPALIVE_MAX_MISSED);
+        session.connect(CONNECT_TIMEOUT_MILLIS);
+        return session;
+    }
+
+    private static void configureTransport(Session session) {
+        prependAlgorithms(session, "cipher.s2c", PREFERRED_CIPHERS);
+        prependAlgorithms(session, "cipher.c2s", PREFERRED_CIPHERS);
+        if (COMPRESSION_LEVEL > 0) {
+            // zlib@openssh.com starts after authentication, which current OpenSSH servers require
+            String compression = "zlib@openssh.com,zlib,none";
+            session.setConfig("compression.s2c", compression);
+            session.setConfig("compression.c2s", compression);
+            session.setConfig("compression_level", String.valueOf(Math.min(COMPRESSION_LEVEL, 9)));
+            // java.util.zip inflates natively, several times faster than the bundled pure-Java zlib
+            session.setConfig("zlib@openssh.com", "com.jcraft.jsch.juz.Compression");
+            session.setConfig("zlib", "com.jcraft.jsch.juz.Compression");
+        } else {
+            session.setConfig("compression.s2c", "none");
+            session.setConfig("compression.c2s", "none");
+        }
+        // Still accept the SHA-1 algorithms older jump hosts offer, as JSch 0.1 did, but last
+        appendAlgorithm(session, "server_host_key", "ssh-rsa");
+        appendAlgorithm(session, "kex", "diffie-hellman-group14-sha1");
+    }
+
+    private static void prependAlgorithms(Session session, String key, String preferred) {
+        List<String> algorithms = new ArrayList<>(Arrays.asList(preferred.split(",")));
+        for (String algorithm : session.getConfig(key).split(",")) {
+            if (!algorithms.contains(algorithm)) {
+                algorithms.add(algorithm);
+            }
+        }
+        session.setConfig(key, String.join(",", algorithms));
+    }
+
+    private static void appendAlgorithm(Session session, String key, String algorithm) {
+        String algorithms = session.getConfig(key);
+        if (!Arrays.asList(algorithms.split(",")).contains(algorithm)) {
+            session.setConfig(key, algorithms + "," + algorithm);
+        }
+    }
+
+    /**
+     * True from a successful {@link #connect} until {@link #disconnect()}, or until the session
+     * is lost and cannot be reconnected. Commands issued while reconnecting wait for it.
+     */
     public boolean isConnected() {
-        return session != null && session.isConnected();
+        return connected;
+    }
+
+    /**
+     * Sets a command to run on every new session before any other command, e.g. the one that
+     * sets up kubectl for the environment. Cleared by {@link #connect}.
+     */
+    public void setBootstrapCommand(String bootstrapCommand) {
+        this.bootstrapCommand = bootstrapCommand;
+    }
+
+    public void setConnectionListener(ConnectionListener connectionListener) {
+        this.connectionListener = connectionListener;
+    }
+
+    /**
+     * Returns a future that completes when the session is up, reconnecting first if it has
+     * dropped. Fails if not connected or if reconnecting is given up.
+     */
+    public synchronized CompletableFuture<Void> awaitConnection() {
+        if (!connected) {
+            return CompletableFuture.failedFuture(new ConnectionLostException("Not connected"));
+        }
+        if (reconnecting != null) {
+            return reconnecting;
+        }
+        if (session.isConnected()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return reconnect();
+    }
+
+    /**
+     * True if the error, possibly wrapped by a future, means the command's session or channel
+     * was lost.
+     */
+    public static boolean isConnectionLoss(Throwable error) {
+        return unwrap(error) instanceof ConnectionLostException;
+    }
+
+    private void checkHealth() {
+        Session current;
+        synchronized (this) {
+            if (!connected || reconnecting != null) {
+                return;
+            }
+            current = session;
+        }
+        boolean healthy = current.isConnected();
+        if (healthy) {
+            try {
+                // Fails straight away if the connection has been reset
+                current.sendKeepAliveMsg();
+            } catch (Exception e) {
+                healthy = false;
+            }
+        }
+        if (!healthy) {
+            synchronized (this) {
+                if (connected && reconnecting == null && session == current) {
+                    reconnect();
+                }
+            }
+        }
+    }
+
+    private synchronized CompletableFuture<Void> reconnect() {
+        reconnecting = new CompletableFuture<>();
+        session.disconnect();
+        ConnectionListener listener = connectionListener;
+        if (listener != null) {
+            listener.connectionLost();
+        }
+        int currentGeneration = generation;
+        MONITOR.execute(() -> reconnectAttempt(currentGeneration, 0));
+        return reconnecting;
+    }
+
+    private void reconnectAttempt(int attemptGeneration, int attempt) {
+        String attemptHost;
+        String attemptUsername;
+        String attemptPassword;
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            if (generation != attemptGeneration) {
+                return;
+            }
+            attemptHost = host;
+            attemptUsername = username;
+            attemptPassword = password;
+            pending = reconnecting;
+        }
+
+        Exception failure;
+        Session newSession = null;
+        try {
+            newSession = openSession(attemptHost, attemptUsername, attemptPassword);
+            synchronized (this) {
+                if (generation != attemptGeneration) {
+                    newSession.disconnect();
+                    return;
+                }
+                session = newSession;
+            }
+            String bootstrap = bootstrapCommand;
+            if (bootstrap != null) {
+                // Straight onto the new session: queued commands are waiting for this to finish
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                startCommand(bootstrap, output, () -> null).get(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            synchronized (this) {
+                if (generation != attemptGeneration) {
+                    return;
+                }
+                reconnecting = null;
+            }
+            pending.complete(null);
+            ConnectionListener listener = connectionListener;
+            if (listener != null) {
+                listener.reconnected();
+            }
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (Exception e) {
+            failure = e;
+        }
+        if (newSession != null) {
+            // Connected, but the bootstrap command failed
+            newSession.disconnect();
+        }
+
+        if (attempt + 1 < RECONNECT_DELAYS_MILLIS.length) {
+            MONITOR.schedule(() -> reconnectAttempt(attemptGeneration, attempt + 1),
+                    RECONNECT_DELAYS_MILLIS[attempt + 1], TimeUnit.MILLISECONDS);
+            return;
+        }
+        synchronized (this) {
+            if (generation != attemptGeneration) {
+                return;
+            }
+            connected = false;
+            reconnecting = null;
+            healthCheck.cancel(false);
+        }
+        failure = failure instanceof ExecutionException && failure.getCause() instanceof Exception
+                ? (Exception) failure.getCause() : failure;
+        pending.completeExceptionally(new ConnectionLostException("Could not reconnect: " + failure.getMessage(), failure));
+        ConnectionListener listener = connectionListener;
+        if (listener != null) {
+            listener.reconnectFailed(failure);
+        }
     }
 
     public String executeCommand(String command) throws JSchException, IOException {
-        ChannelExec channel = null;
+        return await(executeCommandAsync(command));
+    }
+
+    /**
+     * Runs a command and hands its output to the consumer one line at a time (without the
+     * line terminator) as it arrives, so large outputs such as pod logs are never buffered whole.
+     */
+    public void executeCommand(String command, Consumer<String> lineConsumer) throws JSchException, IOException {
+        await(streamCommandAsync(command, lineConsumer));
+    }
+
+    /**
+     * Starts a command and returns a future that completes with its output as soon as the
+     * exec channel reports end of output and the exit status. The command fails if it wrote to
+     * stderr or exited with a non-zero status. No thread is held while the command runs; cancelling
+     * the future closes the channel. Commands beyond the channel cap wait their turn, and a
+     * command that runs longer than the default timeout fails with a TimeoutException.
+     */
+    public CompletableFuture<String> executeCommandAsync(String command) {
+        return executeCommandAsync(command, COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public CompletableFuture<String> executeCommandAsync(String command, long timeout, TimeUnit unit) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        runWithReplay(() -> {
+            RemoteShellPool pool = shellPool;
+            if (pool != null) {
+                return pool.submit(() -> whenConnected(() -> pool.run(command)), timeout, unit);
+            }
+            return commandExecutor.submit(() -> whenConnected(() -> {
+                ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
+                return startCommand(command, responseStream, () -> responseStream.toString(StandardCharsets.UTF_8));
+            }), timeout, unit);
+        }, result, isReadOnly(command) ? MAX_REPLAYS : 0);
+        return result;
+    }
+
+    /**
+     * Streaming variant of {@link #executeCommandAsync(String)}. Lines are delivered on the
+     * SSH session thread, so the consumer should hand them off rather than block. Streams have
+     * no timeout; cancel the future to stop one.
+     */
+    public CompletableFuture<Void> streamCommandAsync(String command, Consumer<String> lineConsumer) {
+        return commandExecutor.submit(
+                () -> whenConnected(() -> startCommand(command, new LineOutputStream(lineConsumer), () -> null)),
+                0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs the command, and again on a new session if the session was lost while it ran, up to
+     * replays more times. Cancelling the result cancels the current run.
+     */
+    private <T> void runWithReplay(Supplier<CompletableFuture<T>> command, CompletableFuture<T> result, int replays) {
+        CompletableFuture<T> run = command.get();
+        result.whenComplete((value, error) -> run.cancel(true));
+        run.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (replays > 0 && isConnectionLoss(error) && connected) {
+                CompletableFuture.delayedExecutor(REPLAY_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(() ->
+                        awaitConnection().whenComplete((v, reconnectError) -> {
+                            if (reconnectError != null) {
+                                result.completeExceptionally(unwrap(error));
+                            } else if (!result.isDone()) {
+                                runWithReplay(command, result, replays - 1);
+                            }
+                        }));
+            } else {
+                result.completeExceptionally(unwrap(error));
+            }
+        });
+    }
+
+    /**
+     * Starts the command once the session is up, waiting for a reconnect in progress.
+     */
+    private <T> CompletableFuture<T> whenConnected(Supplier<CompletableFuture<T>> command) {
+        // A reconnected session is not used until its bootstrap command has run
+        Session current = session;
+        if (reconnecting == null && current != null && current.isConnected()) {
+            return command.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Not on the monitor thread, which the command would hold while its channel opens
+        awaitConnection().whenCompleteAsync((v, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<T> started = command.get();
+            result.whenComplete((value, startedError) -> started.cancel(true));
+            started.whenComplete((value, startedError) -> {
+                if (startedError != null) {
+                    result.completeExceptionally(unwrap(startedError));
+                } else {
+                    result.complete(value);
+                }
+            });
+        }, CommandExecutor.STARTER);
+        return result;
+    }
+
+    // Commands that only read cluster state, so running them twice does no harm. Anything the
+    // shell could turn into a second command or a redirect rules that out.
+    static boolean isReadOnly(String command) {
+        for (String metacharacter : new String[]{";", "&", "|", "`", "$(", ">", "<", "\n", "\r"}) {
+            if (command.contains(metacharacter)) {
+                return false;
+            }
+        }
+        String padded = command.trim() + " ";
+        for (String prefix : new String[]{"kubectl get ", "kubectl describe ", "kubectl top ", "kubectl logs "}) {
+            if (padded.startsWith(prefix)) {
+                return !padded.contains(" -f ") && !padded.contains(" --follow ");
+            }
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Total bytes of command output received on this connection, after decompression.
+     * Sampling it before and after a transfer gives the effective throughput.
+     */
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+
+    /**
+     * Limits how many exec channels may be open on the session at once. Keep this below the
+     * server's MaxSessions setting (10 by default for OpenSSH).
+     */
+    public synchronized void setMaxConcurrentChannels(int maxChannels) {
+        this.maxChannels = maxChannels;
+        updateChannelLimit();
+    }
+
+    /**
+     * Runs commands whose output is collected (not streams) in this many persistent shells,
+     * started as needed, instead of a new login shell per command; 0 turns the pool off. Each
+     * shell keeps a channel open, and those count towards the channel cap.
+     */
+    public synchronized void setShellPoolSize(int size) {
+        if (shellPool != null) {
+            shellPool.close();
+        }
+        shellPool = size > 0 ? new RemoteShellPool(size, () -> session, SSHConnection::tuneChannel, receivedBytes) : null;
+        updateChannelLimit();
+    }
+
+    /**
+     * How many streams can run at once: the channel cap less the channels kept by pooled
+     * shells. Streams beyond this wait for one of the others to finish.
+     */
+    public synchronized int getMaxConcurrentStreams() {
+        int pooled = shellPool != null ? shellPool.getSize() : 0;
+        return Math.max(1, maxChannels - pooled);
+    }
+
+    private void updateChannelLimit() {
+        commandExecutor.setMaxConcurrent(getMaxConcurrentStreams());
+    }
+
+    private <T> CompletableFuture<T> startCommand(String command, OutputStream out, Supplier<T> onSuccess) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Session current = session;
+        ChannelExec channel;
         try {
-            channel = (ChannelExec) session.openChannel("exec");
-            channel.setCommand("bash -l -c '" + command.replace("'", "'\\''") + "'");
+            channel = (ChannelExec) current.openChannel("exec");
+        } catch (JSchException e) {
+            result.completeExceptionally(new ConnectionLostException("Session is down", e));
+            return result;
+        }
 
-            ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
-            ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
-            channel.setOutputStream(responseStream);
-            channel.setErrStream(errorStream);
+        tuneChannel(channel);
+        long started = System.nanoTime();
+        AtomicLong received = new AtomicLong();
+        ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+        channel.setCommand(wrapCommand(command));
+        channel.setErrStream(errorStream);
+        // JSch closes the output stream when the remote side signals EOF (or the channel is torn
+        // down), which is where the command's completion is picked up.
+        channel.setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
 
-            channel.connect();
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (result.isDone()) {
+                    return;
+                }
+                received.addAndGet(len);
+                receivedBytes.addAndGet(len);
+                try {
+                    out.write(b, off, len);
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
 
-            while (!channel.isClosed()) {
+            @Override
+            public void close() {
                 try {
-                    Thread.sleep(100);
+                    out.close();
                 } catch (Exception e) {
-                    break;
+                    result.completeExceptionally(e);
+                }
+                if (!channel.isConnected()) {
+                    result.completeExceptionally(new ConnectionLostException("Channel closed before the command completed"));
+                    return;
                 }
+                // Not on the session thread, which is the one that delivers the exit status
+                awaitExitStatus(channel, System.currentTimeMillis() + EXIT_STATUS_TIMEOUT_MILLIS, () -> {
+                    String error = errorStream.toString(StandardCharsets.UTF_8);
+                    int status = channel.getExitStatus();
+                    if (!error.isEmpty()) {
+                        result.completeExceptionally(new IOException(error));
+                    } else if (status > 0) {
+                        result.completeExceptionally(new IOException("Command exited with status " + status));
+                    } else {
+                        logTransfer(command, received.get(), System.nanoTime() - started);
+                        result.complete(onSuccess.get());
+                    }
+                });
             }
+        });
+        result.whenComplete((v, e) -> channel.disconnect());
 
-            String response = responseStream.toString();
-            String error = errorStream.toString();
+        try {
+            channel.connect();
+        } catch (JSchException e) {
+            result.completeExceptionally(current.isConnected() ? e : new ConnectionLostException("Session is down", e));
+        }
+        return result;
+    }
 
-            if (!error.isEmpty()) {
-                throw new IOException(error);
+    // Runs then once the channel has its exit status, has closed, or the deadline has passed
+    private static void awaitExitStatus(Channel channel, long deadline, Runnable then) {
+        CompletableFuture.delayedExecutor(EXIT_STATUS_POLL_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (channel.getExitStatus() != -1 || channel.isClosed() || System.currentTimeMillis() >= deadline) {
+                then.run();
+            } else {
+                awaitExitStatus(channel, deadline, then);
             }
+        });
+    }
+
+    private static void logTransfer(String command, long bytes, long nanos) {
+        if (bytes >= LOG_TRANSFER_BYTES) {
+            double seconds = nanos / 1e9;
+            System.out.println(String.format("%s: %.1f MB in %.1f s (%.1f MB/s)",
+                    command, bytes / 1e6, seconds, bytes / 1e6 / Math.max(seconds, 0.001)));
+        }
+    }
 
-            return response;
-        } finally {
-            if (channel != null) {
-                channel.disconnect();
+    /**
+     * Sets the channel's receive window and packet size. JSch only exposes these to its own
+     * package, so they are set reflectively; if that fails the channel keeps JSch's defaults.
+     */
+    private static void tuneChannel(Channel channel) {
+        Method[] tuning = channelTuning;
+        if (tuning == null) {
+            return;
+        }
+        try {
+            tuning[0].invoke(channel, CHANNEL_WINDOW_SIZE);
+            tuning[1].invoke(channel, CHANNEL_WINDOW_SIZE);
+            tuning[2].invoke(channel, CHANNEL_PACKET_SIZE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (channelTuning != null) {
+                channelTuning = null;
+                System.err.println("Channel window tuning disabled: " + e);
             }
         }
     }
 
-    public void startWatchingLogs(String command, Consumer<String> outputConsumer) throws JSchException, IOException {
-        if (isWatching) {
-            stopWatchingLogs();
+    private static Method[] channelTuningMethods() {
+        try {
+            Method[] methods = {
+                    Channel.class.getDeclaredMethod("setLocalWindowSizeMax", int.class),
+                    Channel.class.getDeclaredMethod("setLocalWindowSize", int.class),
+                    Channel.class.getDeclaredMethod("setLocalPacketSize", int.class)
+            };
+            for (Method method : methods) {
+                method.setAccessible(true);
+            }
+            return methods;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
         }
+    }
 
-        watchChannel = session.openChannel("exec");
-        ((ChannelExec) watchChannel).setCommand("bash -l -c '" + command.replace("'", "'\\''") + "'");
+    private static <T> T await(CompletableFuture<T> future) throws JSchException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for command");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JSchException) {
+                throw (JSchException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
 
-        InputStream in = watchChannel.getInputStream();
-        watchChannel.connect();
-        isWatching = true;
+    /**
+     * Starts a long-running streaming command such as {@code kubectl logs -f}, replacing any
+     * watch already in progress. Lines are passed to the consumer as they arrive (without the
+     * line terminator); the returned future completes when the stream ends on its own.
+     */
+    public synchronized CompletableFuture<Void> startWatchingLogs(String command, Consumer<String> lineConsumer) {
+        stopWatchingLogs();
+        watchStream = streamCommandAsync(command, lineConsumer);
+        return watchStream;
+    }
 
-        new Thread(() -> {
-            try {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-                String line;
-                while (isWatching && (line = reader.readLine()) != null) {
-                    outputConsumer.accept(line + "\n");
-                }
-            } catch (IOException e) {
-                if (isWatching) {
-                    e.printStackTrace();
+    public synchronized void stopWatchingLogs() {
+        if (watchStream != null) {
+            watchStream.cancel(true);
+            watchStream = null;
+        }
+    }
+
+    /**
+     * Splits the raw channel output into UTF-8 lines. Splitting on the newline byte is safe
+     * because it never occurs inside a multi-byte sequence.
+     */
+    private static class LineOutputStream extends OutputStream {
+        private final Consumer<String> lineConsumer;
+        private byte[] buffer = new byte[8192];
+        private int length;
+
+        LineOutputStream(Consumer<String> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int end = off + len;
+            int lineStart = off;
+            for (int i = off; i < end; i++) {
+                if (b[i] == '\n') {
+                    if (length == 0) {
+                        emit(b, lineStart, i - lineStart);
+                    } else {
+                        append(b, lineStart, i - lineStart);
+                        emit(buffer, 0, length);
+                        length = 0;
+                    }
+                    lineStart = i + 1;
                 }
             }
-        }).start();
-    }
+            append(b, lineStart, end - lineStart);
+        }
+
+        @Override
+        public void close() {
+            if (length > 0) {
+                emit(buffer, 0, length);
+                length = 0;
+            }
+        }
 
-    public void stopWatchingLogs() {
-        isWatching = false;
-        if (watchChannel != null) {
-            watchChannel.disconnect();
-            watchChannel = null;
+        private void append(byte[] b, int off, int len) {
+            if (length + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + len));
+            }
+            System.arraycopy(b, off, buffer, length, len);
+            length += len;
+        }
+
+        private void emit(byte[] b, int off, int len) {
+            if (len > 0 && b[off + len - 1] == '\r') {
+                len--;
+            }
+            lineConsumer.accept(new String(b, off, len, StandardCharsets.UTF_8));
         }
     }
 
+    private String wrapCommand(String command) {
+        return "bash -l -c '" + command.replace("'", "'\\''") + "'";
+    }
+
     public void disconnect() {
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            generation++;
+            connected = false;
+            pending = reconnecting;
+            reconnecting = null;
+            if (healthCheck != null) {
+                healthCheck.cancel(false);
+                healthCheck = null;
+            }
+        }
+        if (pending != null) {
+            pending.completeExceptionally(new ConnectionLostException("Disconnected"));
+        }
         if (session != null) {
             session.disconnect();
         }
@@ -0,0 +1,143 @@
+package com.kubectl.logParser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a set of literals in one pass over a
+ * line. Each literal carries an id; a scan sets the bit of every id found. Transitions for
+ * ASCII characters are precomputed into a dense table, others fall back along failure links.
+ */
+public class AhoCorasick {
+    private static final int ASCII = 128;
+
+    private final boolean caseSensitive;
+    private final int[][] asciiNext;
+    private final List<Map<Character, Integer>> children;
+    private final int[] fail;
+    private final int[][] outputs;
+
+    /**
+     * @param literals the patterns; literal i reports id ids[i]
+     */
+    public AhoCorasick(List<String> literals, int[] ids, boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+
+        // Build the trie
+        children = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        children.add(new HashMap<>());
+        nodeOutputs.add(new ArrayList<>());
+        for (int i = 0; i < literals.size(); i++) {
+            String literal = literals.get(i);
+            int node = 0;
+            for (int j = 0; j < literal.length(); j++) {
+                char c = fold(literal.charAt(j));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(c, next);
+                    children.add(new HashMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(ids[i]);
+        }
+
+        // Breadth-first failure links, merging outputs along the way
+        int size = children.size();
+        fail = new int[size];
+        asciiNext = new int[size][];
+        Queue<Integer> queue = new ArrayDeque<>();
+        asciiNext[0] = new int[ASCII];
+        for (Map.Entry<Character, Integer> entry : children.get(0).entrySet()) {
+            queue.add(entry.getValue());
+            if (entry.getKey() < ASCII) {
+                asciiNext[0][entry.getKey()] = entry.getValue();
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            nodeOutputs.get(node).addAll(nodeOutputs.get(fail[node]));
+            asciiNext[node] = Arrays.copyOf(asciiNext[fail[node]], ASCII);
+            for (Map.Entry<Character, Integer> entry : children.get(node).entrySet()) {
+                char c = entry.getKey();
+                int child = entry.getValue();
+                fail[child] = node == 0 ? 0 : step(fail[node], c);
+                if (c < ASCII) {
+                    asciiNext[node][c] = child;
+                }
+                queue.add(child);
+            }
+        }
+
+        outputs = new int[size][];
+        for (int i = 0; i < size; i++) {
+            outputs[i] = nodeOutputs.get(i).stream().distinct().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * Sets bit id in hits for every literal found in the text.
+     */
+    public void scan(CharSequence text, long[] hits) {
+        int node = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = fold(text.charAt(i));
+            node = c < ASCII ? asciiNext[node][c] : step(node, c);
+            for (int id : outputs[node]) {
+                hits[id >>> 6] |= 1L << id;
+            }
+        }
+    }
+
+    /**
+     * Byte-level scan of [from, to) in a buffer. Only valid when every literal is ASCII; bytes
+     * of multi-byte UTF-8 characters can never be part of a match and reset the automaton.
+     */
+    public void scan(ByteBuffer buffer, int from, int to, long[] hits) {
+        int node = 0;
+        for (int i = from; i < to; i++) {
+            int b = buffer.get(i) & 0xFF;
+            if (b >= ASCII) {
+                node = 0;
+                continue;
+            }
+            if (!caseSensitive && b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            node = asciiNext[node][b];
+            for (int id : outputs[node]) {
+                hits[id >>> 6] |= 1L << id;
+            }
+        }
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            Integer next = children.get(node).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = fail[node];
+        }
+    }
+
+    private char fold(char c) {
+        return caseSensitive ? c : LiteralMatcher.foldCase(c);
+    }
+}
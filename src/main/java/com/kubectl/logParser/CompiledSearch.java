@@ -0,0 +1,253 @@
+package com.kubectl.logParser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A list of search groups compiled for matching many lines.
+ *
+ * Each group's operation joins it to the group before it (the first group's operation is
+ * ignored), and AND binds tighter than OR, so "A OR B AND C" means "A OR (B AND C)". The
+ * expression is compiled to an OR of AND terms and evaluated with short-circuiting. Each thread
+ * keeps pass counts for every group and term and periodically reorders them so that cheap,
+ * selective groups run first: within a term the group most likely to fail per unit of cost
+ * comes first, and terms most likely to pass per unit of cost are tried first.
+ *
+ * When the expression has several literal groups they are merged into Aho-Corasick automata
+ * (one for case-sensitive literals, one for case-insensitive ones), so all literal hits for a
+ * line come from a single pass no matter how many groups there are.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public class CompiledSearch {
+    // Below this many literal groups, scanning the line once per group is cheaper
+    private static final int MIN_AUTOMATON_LITERALS = 3;
+    // Lines evaluated by a thread between reorderings
+    private static final int REORDER_INTERVAL = 4096;
+
+    // Relative evaluation cost per group kind, weighed against the measured pass rates
+    private static final double AUTOMATON_COST = 0.5;
+    private static final double LITERAL_COST = 1;
+    private static final double REGEX_COST = 8;
+
+    private final List<LogParser.SearchGroup> groups;
+    // OR of AND terms, each term a list of group indexes
+    private final int[][] terms;
+    private final double[] cost;
+    private final boolean[] inAutomaton;
+    private final List<AhoCorasick> automata = new ArrayList<>();
+    private final ThreadLocal<Evaluator> evaluator;
+    private final boolean supportsBytes;
+    private final boolean caseInsensitive;
+
+    private CompiledSearch(List<LogParser.SearchGroup> groups) {
+        this.groups = new ArrayList<>(groups);
+        int size = this.groups.size();
+        this.inAutomaton = new boolean[size];
+        this.cost = new double[size];
+
+        List<int[]> termList = new ArrayList<>();
+        List<Integer> term = new ArrayList<>();
+        List<String> exact = new ArrayList<>();
+        List<String> folded = new ArrayList<>();
+        List<Integer> exactIds = new ArrayList<>();
+        List<Integer> foldedIds = new ArrayList<>();
+        boolean allBytes = true;
+        boolean anyCaseInsensitive = false;
+        for (int i = 0; i < size; i++) {
+            LogParser.SearchGroup group = this.groups.get(i);
+            if (i > 0 && !"AND".equals(group.getOperation())) {
+                termList.add(toArray(term));
+                term.clear();
+            }
+            term.add(i);
+
+            allBytes &= group.supportsBytes();
+            anyCaseInsensitive |= !group.isCaseSensitive();
+            cost[i] = group.isUseRegex() && !group.supportsBytes() ? REGEX_COST : LITERAL_COST;
+            if (!group.isUseRegex() && !group.getText().isEmpty()) {
+                (group.isCaseSensitive() ? exact : folded).add(group.getText());
+                (group.isCaseSensitive() ? exactIds : foldedIds).add(i);
+            }
+        }
+        if (!term.isEmpty()) {
+            termList.add(toArray(term));
+        }
+        this.terms = termList.toArray(new int[0][]);
+
+        if (exact.size() + folded.size() >= MIN_AUTOMATON_LITERALS) {
+            addAutomaton(exact, exactIds, true);
+            addAutomaton(folded, foldedIds, false);
+        }
+        this.supportsBytes = allBytes;
+        this.caseInsensitive = anyCaseInsensitive;
+        this.evaluator = ThreadLocal.withInitial(Evaluator::new);
+    }
+
+    public static CompiledSearch compile(List<LogParser.SearchGroup> groups) {
+        return new CompiledSearch(groups);
+    }
+
+    public List<LogParser.SearchGroup> getGroups() {
+        return groups;
+    }
+
+    /**
+     * The expression as an OR of AND terms, each term a list of indexes into the groups.
+     */
+    int[][] getTerms() {
+        return terms;
+    }
+
+    /**
+     * True if {@link #matches(ByteBuffer, int, int)} can evaluate a line of the given kind
+     * without decoding it.
+     */
+    public boolean canMatchBytes(boolean asciiLine) {
+        return supportsBytes && (asciiLine || !caseInsensitive);
+    }
+
+    /**
+     * Evaluates the expression on the raw UTF-8 bytes of a line in [from, to). Callers must
+     * check {@link #canMatchBytes(boolean)} first.
+     */
+    public boolean matches(ByteBuffer buffer, int from, int to) {
+        return groups.isEmpty() || evaluator.get().evaluate(null, buffer, from, to);
+    }
+
+    public boolean matches(CharSequence line) {
+        return groups.isEmpty() || evaluator.get().evaluate(line, null, 0, 0);
+    }
+
+    private void addAutomaton(List<String> literals, List<Integer> ids, boolean caseSensitive) {
+        if (literals.isEmpty()) {
+            return;
+        }
+        int[] idArray = toArray(ids);
+        automata.add(new AhoCorasick(literals, idArray, caseSensitive));
+        for (int id : idArray) {
+            inAutomaton[id] = true;
+            cost[id] = AUTOMATON_COST;
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Pass rate with add-one smoothing, so groups not evaluated yet start at one half
+    private static double passRate(long passes, long evaluations) {
+        return (passes + 1.0) / (evaluations + 2.0);
+    }
+
+    /**
+     * Per-thread evaluation state: the current evaluation order, the pass counts it is derived
+     * from and the automaton hit buffer.
+     */
+    private class Evaluator {
+        // order[i] is term termOrder[i] with its groups in evaluation order
+        final int[][] order = new int[terms.length][];
+        final Integer[] termOrder = new Integer[terms.length];
+        final long[] hits = new long[(groups.size() + 63) / 64];
+        final long[] groupEvaluations = new long[groups.size()];
+        final long[] groupPasses = new long[groups.size()];
+        final long[] termEvaluations = new long[terms.length];
+        final long[] termPasses = new long[terms.length];
+        int linesUntilReorder = REORDER_INTERVAL;
+        boolean scanned;
+
+        Evaluator() {
+            for (int t = 0; t < terms.length; t++) {
+                order[t] = terms[t];
+                termOrder[t] = t;
+            }
+        }
+
+        boolean evaluate(CharSequence line, ByteBuffer buffer, int from, int to) {
+            if (--linesUntilReorder == 0) {
+                reorder();
+            }
+            scanned = false;
+            for (int i = 0; i < order.length; i++) {
+                int term = termOrder[i];
+                boolean passed = true;
+                for (int group : order[i]) {
+                    groupEvaluations[group]++;
+                    if (!evaluateGroup(group, line, buffer, from, to)) {
+                        passed = false;
+                        break;
+                    }
+                    groupPasses[group]++;
+                }
+                termEvaluations[term]++;
+                if (passed) {
+                    termPasses[term]++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean evaluateGroup(int group, CharSequence line, ByteBuffer buffer, int from, int to) {
+            if (inAutomaton[group]) {
+                if (!scanned) {
+                    Arrays.fill(hits, 0L);
+                    for (AhoCorasick automaton : automata) {
+                        if (line != null) {
+                            automaton.scan(line, hits);
+                        } else {
+                            automaton.scan(buffer, from, to, hits);
+                        }
+                    }
+                    scanned = true;
+                }
+                return (hits[group >>> 6] & (1L << group)) != 0;
+            }
+            LogParser.SearchGroup searchGroup = groups.get(group);
+            return line != null ? searchGroup.matches(line) : searchGroup.matches(buffer, from, to);
+        }
+
+        private void reorder() {
+            linesUntilReorder = REORDER_INTERVAL;
+
+            // Within a term: ascending cost per chance of failing
+            double[] groupKey = new double[groups.size()];
+            for (int group = 0; group < groupKey.length; group++) {
+                groupKey[group] = cost[group] / (1 - passRate(groupPasses[group], groupEvaluations[group]));
+            }
+            int[][] sortedTerms = new int[terms.length][];
+            double[] termKey = new double[terms.length];
+            for (int t = 0; t < terms.length; t++) {
+                sortedTerms[t] = Arrays.stream(terms[t]).boxed()
+                        .sorted(Comparator.comparingDouble(group -> groupKey[group]))
+                        .mapToInt(Integer::intValue).toArray();
+
+                // Across terms: ascending expected cost per chance of passing
+                double expectedCost = 0;
+                double reached = 1;
+                for (int group : sortedTerms[t]) {
+                    expectedCost += reached * cost[group];
+                    reached *= passRate(groupPasses[group], groupEvaluations[group]);
+                }
+                termKey[t] = expectedCost / passRate(termPasses[t], termEvaluations[t]);
+            }
+            Arrays.sort(termOrder, Comparator.comparingDouble(t -> termKey[t]));
+            for (int i = 0; i < order.length; i++) {
+                order[i] = sortedTerms[termOrder[i]];
+            }
+
+            // Halve the counts so the order keeps following the log as it changes
+            for (int group = 0; group < groupKey.length; group++) {
+                groupEvaluations[group] >>= 1;
+                groupPasses[group] >>= 1;
+            }
+            for (int t = 0; t < terms.length; t++) {
+                termEvaluations[t] >>= 1;
+                termPasses[t] >>= 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.kubectl.logParser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Recognises compressed log files by their first bytes (not their names) and opens them as a
+ * stream of decompressed bytes, so archived logs can be searched without unpacking them to
+ * disk first. gzip (including multi-member files such as concatenated rotations) and zip are
+ * read with the JDK's inflater; for zip, the entries are read one after another as one log.
+ * zstd, bzip2 and xz are recognised but need a library this application does not ship, so
+ * opening them fails with a message saying how to decompress them.
+ *
+ * Decompression runs on its own thread a few blocks ahead of the reader, so inflating and
+ * matching overlap.
+ */
+public class CompressedLogs {
+    public enum Format {
+        PLAIN, GZIP, ZIP, ZSTD, BZIP2, XZ;
+
+        public boolean isCompressed() {
+            return this != PLAIN;
+        }
+
+        public boolean isSupported() {
+            return this == PLAIN || this == GZIP || this == ZIP;
+        }
+    }
+
+    // Decompressed bytes handed over per block, and blocks decompressed ahead of the reader
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final int BLOCKS_AHEAD = 4;
+
+    private CompressedLogs() {
+    }
+
+    /**
+     * Returns the file's format from its magic number.
+     */
+    public static Format detect(String filePath) throws IOException {
+        byte[] magic = new byte[6];
+        int length = 0;
+        try (InputStream in = new FileInputStream(filePath)) {
+            int read;
+            while (length < magic.length && (read = in.read(magic, length, magic.length - length)) > 0) {
+                length += read;
+            }
+        }
+        if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return Format.GZIP;
+        }
+        if (length >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return Format.ZIP;
+        }
+        if (length >= 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return Format.ZSTD;
+        }
+        if (length >= 3 && magic[0] == 'B' && magic[1] == 'Z' && magic[2] == 'h') {
+            return Format.BZIP2;
+        }
+        if (length >= 6 && (magic[0] & 0xFF) == 0xFD && magic[1] == '7' && magic[2] == 'z'
+                && magic[3] == 'X' && magic[4] == 'Z' && magic[5] == 0) {
+            return Format.XZ;
+        }
+        return Format.PLAIN;
+    }
+
+    /**
+     * Wraps a stream of the file's raw bytes in one that decompresses it. Plain files are
+     * returned as they are. Closing the returned stream closes the raw one.
+     */
+    public static InputStream open(InputStream raw, Format format) throws IOException {
+        try {
+            switch (format) {
+                case PLAIN:
+                    return raw;
+                case GZIP:
+                    return new ReadAheadInputStream(new GZIPInputStream(raw, 64 * 1024));
+                case ZIP:
+                    return new ReadAheadInputStream(new ZipEntriesInputStream(new ZipInputStream(raw)));
+                default:
+                    throw new IOException(format + " compressed logs are not supported; decompress the file first (e.g. "
+                            + (format == Format.ZSTD ? "zstd -d" : format == Format.BZIP2 ? "bunzip2" : "unxz") + ")");
+            }
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The contents of every file entry in a zip, one after another.
+     */
+    private static class ZipEntriesInputStream extends InputStream {
+        private final ZipInputStream zip;
+        private boolean inEntry;
+
+        ZipEntriesInputStream(ZipInputStream zip) {
+            this.zip = zip;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (true) {
+                if (!inEntry && !nextFile()) {
+                    return -1;
+                }
+                int read = zip.read(buffer, offset, length);
+                if (read >= 0) {
+                    return read;
+                }
+                inEntry = false;
+            }
+        }
+
+        private boolean nextFile() throws IOException {
+            ZipEntry entry;
+            do {
+                entry = zip.getNextEntry();
+            } while (entry != null && entry.isDirectory());
+            inEntry = entry != null;
+            return inEntry;
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    /**
+     * Reads the source on a background thread, up to {@link #BLOCKS_AHEAD} blocks ahead of
+     * the consumer.
+     */
+    private static class ReadAheadInputStream extends InputStream {
+        // Marks the end of the source; errors are passed as their own block
+        private static final Block END = new Block(new byte[0], 0, null);
+
+        private final InputStream source;
+        private final BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(BLOCKS_AHEAD);
+        private final Thread reader;
+        private volatile boolean closed;
+        private Block current;
+        private int position;
+
+        ReadAheadInputStream(InputStream source) {
+            this.source = source;
+            this.reader = new Thread(this::readAhead, "log-decompress");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readAhead() {
+            try {
+                while (!closed) {
+                    byte[] buffer = new byte[BLOCK_SIZE];
+                    int length = 0;
+                    int read;
+                    while (length < buffer.length && (read = source.read(buffer, length, buffer.length - length)) > 0) {
+                        length += read;
+                    }
+                    if (length > 0) {
+                        blocks.put(new Block(buffer, length, null));
+                    }
+                    if (length < buffer.length) {
+                        break;
+                    }
+                }
+                blocks.put(END);
+            } catch (IOException | RuntimeException e) {
+                IOException error = e instanceof IOException ? (IOException) e : new IOException(e);
+                try {
+                    blocks.put(new Block(null, 0, error));
+                } catch (InterruptedException interrupted) {
+                    // Closed while reporting the error; nobody is reading any more
+                }
+            } catch (InterruptedException e) {
+                // Closed by the consumer
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (current != null && current.error != null) {
+                throw current.error;
+            }
+            if (current == null || position == current.length) {
+                if (current == END) {
+                    return -1;
+                }
+                try {
+                    current = blocks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while decompressing");
+                }
+                position = 0;
+                if (current.error != null) {
+                    throw current.error;
+                }
+                if (current == END) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current.data, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            reader.interrupt();
+            blocks.clear();
+            source.close();
+        }
+
+        private static class Block {
+            final byte[] data;
+            final int length;
+            final IOException error;
+
+            Block(byte[] data, int length, IOException error) {
+                this.data = data;
+                this.length = length;
+                this.error = error;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.kubectl.logParser;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One file's results in a multi-file search ordered by file. Until the file's turn to be output
+ * comes, its search writes the results to a {@link MatchSpool}; from then on they go to the
+ * output thread through a small queue, which holds the search back when output falls behind.
+ * Either way memory use does not grow with the number of results.
+ */
+class FileResults {
+    private static final int QUEUE_CAPACITY = 1024;
+    // How long the output thread waits for a result before checking whether the search ended
+    private static final long POLL_MILLIS = 100;
+    private static final SearchMatch END = new SearchMatch(0, "", false);
+
+    private final BlockingQueue<SearchMatch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Created on the first result written before the file's turn
+    private MatchSpool spool;
+    private boolean live;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Adds the file's next result; called by the search thread.
+     */
+    void add(SearchMatch match) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                throw new CancellationException("Search cancelled");
+            }
+            if (!live) {
+                if (spool == null) {
+                    spool = new MatchSpool();
+                }
+                spool.write(0, match);
+                return;
+            }
+        }
+        put(match);
+    }
+
+    /**
+     * Marks the file's results complete; called by the search thread whether or not it succeeded.
+     */
+    void finish() {
+        synchronized (this) {
+            if (!live) {
+                finished = true;
+                return;
+            }
+        }
+        put(END);
+    }
+
+    /**
+     * Passes the file's results to the sink on the calling thread: first those spooled so far,
+     * then the rest as the search finds them, until it ends.
+     */
+    void drainTo(Consumer<SearchMatch> sink, Future<?> search) throws IOException {
+        MatchSpool spooled;
+        boolean done;
+        synchronized (this) {
+            live = true;
+            spooled = spool;
+            spool = null;
+            done = finished;
+        }
+        if (spooled != null) {
+            try {
+                spooled.finish();
+                try (MatchSpool.Reader reader = spooled.read()) {
+                    while (reader.next()) {
+                        sink.accept(reader.getMatch());
+                    }
+                }
+            } finally {
+                spooled.close();
+            }
+        }
+        while (!done) {
+            SearchMatch match;
+            try {
+                match = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Search interrupted");
+            }
+            if (match == END) {
+                done = true;
+            } else if (match != null) {
+                sink.accept(match);
+            } else if (search.isDone() && queue.isEmpty()) {
+                // The search never got to run, or stopped without finishing
+                done = true;
+            }
+        }
+    }
+
+    /**
+     * Deletes anything spooled and not yet output.
+     */
+    synchronized void close() {
+        closed = true;
+        if (spool != null) {
+            spool.close();
+            spool = null;
+        }
+    }
+
+    private void put(SearchMatch match) {
+        try {
+            queue.put(match);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Search interrupted");
+        }
+    }
+}
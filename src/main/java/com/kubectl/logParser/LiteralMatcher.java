@@ -0,0 +1,149 @@
+package com.kubectl.logParser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Precompiled substring matcher for a literal search text. Case-insensitive matching runs a
+ * Boyer-Moore-Horspool scan over case-folded characters in place, so matching a line
+ * allocates nothing (unlike lowercasing the line and the pattern for every call).
+ *
+ * Case folding is done per character the same way as {@link String#regionMatches(boolean, int,
+ * String, int, int)}, which is locale-independent.
+ */
+public class LiteralMatcher {
+    private static final int TABLE_SIZE = 256;
+
+    private final String literal;
+    private final boolean caseSensitive;
+    private final char[] pattern;
+    private final int[] shift;
+    private final boolean ascii;
+
+    public LiteralMatcher(String literal, boolean caseSensitive) {
+        this.literal = literal;
+        this.caseSensitive = caseSensitive;
+        this.pattern = new char[literal.length()];
+        boolean asciiOnly = true;
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = fold(literal.charAt(i));
+            asciiOnly &= literal.charAt(i) < 128;
+        }
+        this.ascii = asciiOnly;
+
+        // Shifts are bucketed on the low byte of the folded character; a collision can only
+        // make a shift smaller, never skip a match
+        this.shift = new int[TABLE_SIZE];
+        int last = pattern.length - 1;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            shift[i] = Math.max(pattern.length, 1);
+        }
+        for (int i = 0; i < last; i++) {
+            int bucket = pattern[i] & (TABLE_SIZE - 1);
+            shift[bucket] = Math.min(shift[bucket], last - i);
+        }
+    }
+
+    public String getLiteral() {
+        return literal;
+    }
+
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    public int length() {
+        return pattern.length;
+    }
+
+    /**
+     * True if the literal is pure ASCII, which is what the byte-level search requires.
+     */
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    public boolean matches(CharSequence text) {
+        return indexIn(text, 0) >= 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence at or after fromIndex, or -1.
+     */
+    public int indexIn(CharSequence text, int fromIndex) {
+        if (caseSensitive && text instanceof String) {
+            return ((String) text).indexOf(literal, fromIndex);
+        }
+
+        int m = pattern.length;
+        int n = text.length();
+        if (m == 0) {
+            return Math.min(fromIndex, n);
+        }
+        int last = m - 1;
+        char lastChar = pattern[last];
+        int i = fromIndex;
+        while (i <= n - m) {
+            char c = fold(text.charAt(i + last));
+            if (c == lastChar) {
+                int j = last - 1;
+                while (j >= 0 && fold(text.charAt(i + j)) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[c & (TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+    /**
+     * Searches the raw bytes in [from, to) of a buffer without decoding them. Only valid for
+     * ASCII literals: their UTF-8 bytes never occur inside a multi-byte character, and
+     * case-insensitive matching folds ASCII letters only, which agrees with the char-based
+     * search whenever the text is ASCII. Returns the absolute index of the first match or -1.
+     */
+    public int indexIn(ByteBuffer buffer, int from, int to) {
+        int m = pattern.length;
+        if (m == 0) {
+            return from;
+        }
+        int last = m - 1;
+        char lastChar = pattern[last];
+        int i = from;
+        while (i <= to - m) {
+            char c = foldByte(buffer.get(i + last));
+            if (c == lastChar) {
+                int j = last - 1;
+                while (j >= 0 && foldByte(buffer.get(i + j)) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[c & (TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+    private char foldByte(byte b) {
+        char c = (char) (b & 0xFF);
+        if (!caseSensitive && c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+
+    private char fold(char c) {
+        return caseSensitive ? c : foldCase(c);
+    }
+
+    static char foldCase(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
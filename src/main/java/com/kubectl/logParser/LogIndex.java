@@ -0,0 +1,384 @@
+package com.kubectl.logParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram index of a log file, stored next to it as "&lt;log&gt;.idx". The file is cut into
+ * line-aligned blocks of about {@link #BLOCK_SIZE} bytes; for every trigram (three bytes,
+ * ASCII letters lowercased) the index stores the list of blocks containing it, delta- and
+ * varint-encoded. A search looks up the trigrams of each group's required literals (see
+ * {@link RegexLiterals} for regex groups) and only scans blocks that can contain a match.
+ *
+ * The index records the log's size and modification time and is ignored once either changes.
+ */
+public class LogIndex {
+    public static final String EXTENSION = ".idx";
+    public static final int BLOCK_SIZE = 128 * 1024;
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+    private static final int TRIGRAMS = 1 << 24;
+
+    private final File indexFile;
+    private final long logSize;
+    private final long logModified;
+    private final long[] blockStarts;
+    private final long[] blockFirstLines;
+    private final int[] keys;
+    private final long[] postingOffsets;
+    private final int[] postingLengths;
+
+    private LogIndex(File indexFile, long logSize, long logModified, long[] blockStarts, long[] blockFirstLines,
+                     int[] keys, long[] postingOffsets, int[] postingLengths) {
+        this.indexFile = indexFile;
+        this.logSize = logSize;
+        this.logModified = logModified;
+        this.blockStarts = blockStarts;
+        this.blockFirstLines = blockFirstLines;
+        this.keys = keys;
+        this.postingOffsets = postingOffsets;
+        this.postingLengths = postingLengths;
+    }
+
+    public static File indexFileFor(String logPath) {
+        return new File(logPath + EXTENSION);
+    }
+
+    /**
+     * Opens the index of a log file. Returns null if there is none or it no longer matches the
+     * log.
+     */
+    public static LogIndex open(String logPath) throws IOException {
+        File indexFile = indexFileFor(logPath);
+        File logFile = new File(logPath);
+        if (!indexFile.isFile() || !logFile.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long logSize = in.readLong();
+            long logModified = in.readLong();
+            if (logSize != logFile.length() || logModified != logFile.lastModified()) {
+                return null;
+            }
+
+            int blockCount = in.readInt();
+            long[] blockStarts = new long[blockCount];
+            long[] blockFirstLines = new long[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                blockStarts[i] = in.readLong();
+                blockFirstLines[i] = in.readLong();
+            }
+
+            int trigramCount = in.readInt();
+            int[] keys = new int[trigramCount];
+            long[] postingOffsets = new long[trigramCount];
+            int[] postingLengths = new int[trigramCount];
+            for (int i = 0; i < trigramCount; i++) {
+                keys[i] = in.readInt();
+                postingOffsets[i] = in.readLong();
+                postingLengths[i] = in.readInt();
+            }
+            return new LogIndex(indexFile, logSize, logModified, blockStarts, blockFirstLines,
+                    keys, postingOffsets, postingLengths);
+        }
+    }
+
+    /**
+     * Indexes the log file, replacing any existing index, and returns the new index.
+     */
+    public static LogIndex build(String logPath) throws IOException {
+        File logFile = new File(logPath);
+        long logModified = logFile.lastModified();
+        List<Long> blockStarts = new ArrayList<>();
+        List<Long> blockFirstLines = new ArrayList<>();
+        Map<Integer, Posting> postings = new HashMap<>();
+
+        // Trigrams seen in the current block, so each is recorded once per block
+        long[] seen = new long[TRIGRAMS / 64];
+        int[] seenKeys = new int[4096];
+        int seenCount = 0;
+
+        long logSize;
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            logSize = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+            long position = 0;
+            long line = 0;
+            long blockStart = 0;
+            int key = 0;
+            int lineLength = 0;
+            blockStarts.add(0L);
+            blockFirstLines.add(0L);
+
+            while (position < logSize) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    int b = buffer.get(i) & 0xFF;
+                    if (b == '\n') {
+                        line++;
+                        key = 0;
+                        lineLength = 0;
+                        long next = position + i + 1;
+                        if (next - blockStart >= BLOCK_SIZE && next < logSize) {
+                            int block = blockStarts.size() - 1;
+                            for (int j = 0; j < seenCount; j++) {
+                                int k = seenKeys[j];
+                                seen[k >>> 6] &= ~(1L << k);
+                                postings.computeIfAbsent(k, unused -> new Posting()).add(block);
+                            }
+                            seenCount = 0;
+                            blockStart = next;
+                            blockStarts.add(next);
+                            blockFirstLines.add(line);
+                        }
+                        continue;
+                    }
+                    key = ((key << 8) | fold(b)) & (TRIGRAMS - 1);
+                    if (++lineLength >= 3 && (seen[key >>> 6] & (1L << key)) == 0) {
+                        seen[key >>> 6] |= 1L << key;
+                        if (seenCount == seenKeys.length) {
+                            seenKeys = Arrays.copyOf(seenKeys, seenCount * 2);
+                        }
+                        seenKeys[seenCount++] = key;
+                    }
+                }
+                position += read;
+            }
+            int block = blockStarts.size() - 1;
+            for (int j = 0; j < seenCount; j++) {
+                postings.computeIfAbsent(seenKeys[j], unused -> new Posting()).add(block);
+            }
+        }
+
+        int[] keys = postings.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        File indexFile = indexFileFor(logPath);
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        long[] postingOffsets = new long[keys.length];
+        int[] postingLengths = new int[keys.length];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logSize);
+            out.writeLong(logModified);
+            out.writeInt(blockStarts.size());
+            for (int i = 0; i < blockStarts.size(); i++) {
+                out.writeLong(blockStarts.get(i));
+                out.writeLong(blockFirstLines.get(i));
+            }
+
+            // The directory comes first, so posting offsets are known from the sizes alone
+            long offset = out.size() + 4L + keys.length * 16L;
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                Posting posting = postings.get(keys[i]);
+                postingOffsets[i] = offset;
+                postingLengths[i] = posting.size;
+                out.writeInt(keys[i]);
+                out.writeLong(offset);
+                out.writeInt(posting.size);
+                offset += posting.size;
+            }
+            for (int key : keys) {
+                Posting posting = postings.get(key);
+                out.write(posting.data, 0, posting.size);
+            }
+        }
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        return new LogIndex(indexFile, logSize, logModified,
+                blockStarts.stream().mapToLong(Long::longValue).toArray(),
+                blockFirstLines.stream().mapToLong(Long::longValue).toArray(),
+                keys, postingOffsets, postingLengths);
+    }
+
+    /**
+     * True while the log still has the size and modification time it was indexed with.
+     */
+    public boolean isCurrent(String logPath) {
+        File logFile = new File(logPath);
+        return logFile.length() == logSize && logFile.lastModified() == logModified;
+    }
+
+    public int getBlockCount() {
+        return blockStarts.length;
+    }
+
+    /**
+     * Splits the log into its blocks, marking the ones that may contain a match for the search.
+     */
+    List<MappedLogSearch.Chunk> chunks(CompiledSearch search) throws IOException {
+        BitSet candidates = candidates(search);
+        List<MappedLogSearch.Chunk> chunks = new ArrayList<>(blockStarts.length);
+        for (int i = 0; i < blockStarts.length; i++) {
+            long end = i + 1 < blockStarts.length ? blockStarts[i + 1] : logSize;
+            chunks.add(new MappedLogSearch.Chunk(blockStarts[i], end, blockFirstLines[i],
+                    candidates == null || candidates.get(i)));
+        }
+        return chunks;
+    }
+
+    // Returns the blocks that can match, or null if every block can
+    private BitSet candidates(CompiledSearch search) throws IOException {
+        List<LogParser.SearchGroup> groups = search.getGroups();
+        if (groups.isEmpty()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+            BitSet result = new BitSet(blockStarts.length);
+            for (int[] term : search.getTerms()) {
+                BitSet termBlocks = null;
+                for (int group : term) {
+                    BitSet groupBlocks = candidates(file, groups.get(group));
+                    if (groupBlocks == null) {
+                        continue;
+                    }
+                    if (termBlocks == null) {
+                        termBlocks = groupBlocks;
+                    } else {
+                        termBlocks.and(groupBlocks);
+                    }
+                }
+                if (termBlocks == null) {
+                    return null;
+                }
+                result.or(termBlocks);
+            }
+            return result;
+        }
+    }
+
+    private BitSet candidates(RandomAccessFile file, LogParser.SearchGroup group) throws IOException {
+        List<String> literals = group.getRequiredLiterals();
+        if (literals == null) {
+            return null;
+        }
+        // A line matches only if it contains one of the literals
+        BitSet blocks = new BitSet(blockStarts.length);
+        for (String literal : literals) {
+            BitSet literalBlocks = candidates(file, literal, group.isCaseSensitive());
+            if (literalBlocks == null) {
+                return null;
+            }
+            blocks.or(literalBlocks);
+        }
+        return blocks;
+    }
+
+    private BitSet candidates(RandomAccessFile file, String literal, boolean caseSensitive) throws IOException {
+        if (!caseSensitive && !isAscii(literal)) {
+            // Unicode case folding can match bytes that differ from the literal's
+            return null;
+        }
+
+        BitSet blocks = null;
+        byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i + 3 <= bytes.length; i++) {
+            if (!caseSensitive && (foldsFromNonAscii(bytes[i]) || foldsFromNonAscii(bytes[i + 1])
+                    || foldsFromNonAscii(bytes[i + 2]))) {
+                continue;
+            }
+            int key = fold(bytes[i] & 0xFF) << 16 | fold(bytes[i + 1] & 0xFF) << 8 | fold(bytes[i + 2] & 0xFF);
+            BitSet trigramBlocks = readPosting(file, key);
+            if (blocks == null) {
+                blocks = trigramBlocks;
+            } else {
+                blocks.and(trigramBlocks);
+            }
+        }
+        return blocks;
+    }
+
+    private BitSet readPosting(RandomAccessFile file, int key) throws IOException {
+        BitSet blocks = new BitSet(blockStarts.length);
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
+            return blocks;
+        }
+        byte[] data = new byte[postingLengths[index]];
+        file.seek(postingOffsets[index]);
+        file.readFully(data);
+
+        int block = -1;
+        int value = 0;
+        int shift = 0;
+        for (byte b : data) {
+            value |= (b & 0x7F) << shift;
+            if (b < 0) {
+                shift += 7;
+            } else {
+                block += value + 1;
+                blocks.set(block);
+                value = 0;
+                shift = 0;
+            }
+        }
+        return blocks;
+    }
+
+    private static int fold(int b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    // Non-ASCII characters fold to these letters (U+0130/U+0131 to i, U+017F to s, U+212A to k)
+    private static boolean foldsFromNonAscii(byte b) {
+        int c = fold(b & 0xFF);
+        return c == 'i' || c == 's' || c == 'k';
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Growable list of block numbers, each stored as (block - previous - 1) in varint form
+    private static class Posting {
+        byte[] data = new byte[4];
+        int size;
+        int lastBlock = -1;
+
+        void add(int block) {
+            int delta = block - lastBlock - 1;
+            lastBlock = block;
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while (delta >= 0x80) {
+                data[size++] = (byte) (delta | 0x80);
+                delta >>>= 7;
+            }
+            data[size++] = (byte) delta;
+        }
+    }
+}
@@ -1,14 +1,74 @@
 package com.kubectl.logParser;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import javax.swing.JTextArea;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class LogParser {
+    // Files at least this large are searched with the memory-mapped parallel engine
+    public static final long PARALLEL_SEARCH_THRESHOLD = 32L * 1024 * 1024;
+
+    // Lines between progress updates and cancellation checks in the sequential search
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    private static final Executor SEARCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "log-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Files searched at the same time by a multi-file search. Large files are also split across
+     * the fork-join pool, so this mostly keeps several reads in flight.
+     */
+    public static final int FILE_SEARCH_PARALLELISM = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService FILE_SEARCH_EXECUTOR = Executors.newFixedThreadPool(FILE_SEARCH_PARALLELISM, runnable -> {
+        Thread thread = new Thread(runnable, "log-file-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * How a multi-file search orders its results.
+     */
+    public enum FileOrder {
+        /** Each file's results in turn, in the order the files were given */
+        BY_FILE,
+        /** All files' results interleaved by the timestamps they start with */
+        BY_TIMESTAMP
+    }
+
+    private final MappedLogSearch mappedSearch = new MappedLogSearch();
+    private boolean parallelSearch = true;
+    // Index of the file searched last, kept so repeat searches skip reloading it
+    private LogIndex index;
+    private String indexPath;
+
     public static class SearchGroup implements Serializable {
         private static final long serialVersionUID = 1L;
         private final String text;
@@ -16,6 +76,17 @@ public class LogParser {
         private final boolean caseSensitive;
         private final boolean useRegex;
         private transient Pattern pattern;
+        // Matchers are reset for each line rather than allocated; one per thread since a
+        // group may be shared by parallel scans
+        private transient ThreadLocal<Matcher> matcher;
+        private transient LiteralMatcher literalMatcher;
+        // Set when the group can be evaluated on raw UTF-8 bytes (an ASCII literal, or a regex
+        // that is just an ASCII literal)
+        private transient LiteralMatcher byteMatcher;
+        // Every matching line contains at least one of these; used to reject lines before
+        // running the regex and to look the group up in a LogIndex
+        private transient List<String> requiredLiterals;
+        private transient List<LiteralMatcher> prefilter;
 
         public SearchGroup(String text, String operation, boolean caseSensitive, boolean useRegex) throws PatternSyntaxException {
             this.text = text;
@@ -29,7 +100,44 @@ public class LogParser {
             if (useRegex) {
                 int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
                 this.pattern = Pattern.compile(text, flags);
+                this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+                String literal = literalOf(text);
+                this.byteMatcher = literal != null ? new LiteralMatcher(literal, caseSensitive) : null;
+                this.requiredLiterals = RegexLiterals.requiredLiterals(text);
+                this.prefilter = null;
+                if (requiredLiterals != null) {
+                    prefilter = new ArrayList<>();
+                    for (String required : requiredLiterals) {
+                        prefilter.add(new LiteralMatcher(required, caseSensitive));
+                    }
+                }
+            } else {
+                this.literalMatcher = new LiteralMatcher(text, caseSensitive);
+                this.byteMatcher = literalMatcher;
+                this.requiredLiterals = Collections.singletonList(text);
+            }
+            if (byteMatcher != null && !byteMatcher.isAscii()) {
+                byteMatcher = null;
+            }
+        }
+
+        // Returns the text a regex matches literally if it has no operators, otherwise null
+        private static String literalOf(String regex) {
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < regex.length(); i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    if (++i == regex.length() || Character.isLetterOrDigit(regex.charAt(i))) {
+                        return null;
+                    }
+                    literal.append(regex.charAt(i));
+                } else if ("^$.|?*+()[]{}".indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    literal.append(c);
+                }
             }
+            return literal.toString();
         }
 
         // This is called when the object is deserialized
@@ -54,6 +162,50 @@ public class LogParser {
             return useRegex;
         }
 
+        /**
+         * Matches a line of text. The line is not used after this returns, so callers may pass
+         * a view of a buffer they go on to reuse.
+         */
+        public boolean matches(CharSequence line) {
+            if (useRegex) {
+                return passesPrefilter(line) && matcher.get().reset(line).find();
+            }
+            return literalMatcher.matches(line);
+        }
+
+        private boolean passesPrefilter(CharSequence line) {
+            if (prefilter == null) {
+                return true;
+            }
+            for (LiteralMatcher required : prefilter) {
+                if (required.matches(line)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns texts of which every line matched by this group contains at least one (with
+         * this group's case sensitivity), or null if there are none.
+         */
+        public List<String> getRequiredLiterals() {
+            return requiredLiterals;
+        }
+
+        public boolean supportsBytes() {
+            return byteMatcher != null;
+        }
+
+        /**
+         * Matches the raw UTF-8 bytes of a line in [from, to). Only valid when
+         * {@link #supportsBytes()} is true; for case-insensitive groups the line must also be
+         * pure ASCII, since folding of non-ASCII characters needs the decoded text.
+         */
+        public boolean matches(ByteBuffer buffer, int from, int to) {
+            return byteMatcher.indexIn(buffer, from, to) >= 0;
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -64,88 +216,407 @@ public class LogParser {
         }
     }
 
-    public void searchInLogFile(String filePath, List<SearchGroup> searchGroups, JTextArea resultArea, boolean includeAfterMatch) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+    /**
+     * Enables the memory-mapped parallel search for files of at least
+     * {@link #PARALLEL_SEARCH_THRESHOLD} bytes. On by default.
+     */
+    public void setParallelSearch(boolean parallelSearch) {
+        this.parallelSearch = parallelSearch;
+    }
+
+    public boolean isParallelSearch() {
+        return parallelSearch;
+    }
+
+    /**
+     * Starts searching the file on a background thread and returns the running task. Every
+     * matching line (and, with includeAfterMatch, every line after the first match) is passed
+     * to the sink on that thread as it is found, in file order. Nothing is collected here, so
+     * memory use is up to the sink.
+     */
+    public SearchTask startSearch(String filePath, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                                  Consumer<SearchMatch> sink) {
+        SearchTask task = new SearchTask(new File(filePath).length());
+        List<SearchGroup> groups = new ArrayList<>(searchGroups);
+        SEARCH_EXECUTOR.execute(() -> {
+            try {
+                task.getResult().complete(search(filePath, groups, includeAfterMatch, sink, task));
+            } catch (IOException | RuntimeException e) {
+                task.getResult().completeExceptionally(e);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Searches the file on the calling thread, passing results to the sink as they are found.
+     * Returns the number of matching lines.
+     */
+    public int search(String filePath, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                      Consumer<SearchMatch> sink) throws IOException {
+        return search(filePath, searchGroups, includeAfterMatch, sink, new SearchTask(new File(filePath).length()));
+    }
+
+    private int search(String filePath, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                       Consumer<SearchMatch> sink, SearchTask task) throws IOException {
+        CompiledSearch compiled = CompiledSearch.compile(searchGroups);
+        // Compressed files can only be read as a stream
+        CompressedLogs.Format format = CompressedLogs.detect(filePath);
+        LogIndex logIndex = format.isCompressed() ? null : getIndex(filePath);
+        if (logIndex != null) {
+            try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+                return mappedSearch.search(channel, logIndex.chunks(compiled), compiled, includeAfterMatch, sink, task);
+            }
+        }
+
+        File file = new File(filePath);
+        if (parallelSearch && !format.isCompressed() && file.isFile() && file.length() >= PARALLEL_SEARCH_THRESHOLD) {
+            return mappedSearch.search(filePath, compiled, includeAfterMatch, sink, task);
+        }
+
+        // Progress counts the bytes read from the file, compressed or not
+        CountingInputStream input = new CountingInputStream(new FileInputStream(filePath));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(CompressedLogs.open(input, format), StandardCharsets.UTF_8))) {
             String line;
             int lineNumber = 0;
             int matchCount = 0;
+            int reportedMatches = 0;
+            long reportedBytes = 0;
             boolean includeRemaining = false;
-            
-            // Write header to result area
-            StringBuilder results = new StringBuilder();
-            results.append("Search Results for expression:\n");
-            for (int i = 0; i < searchGroups.size(); i++) {
-                if (i > 0) {
-                    results.append(" ");
-                }
-                results.append(searchGroups.get(i).toString());
-            }
-            if (includeAfterMatch) {
-                results.append("\n(Including all lines after matches)");
-            }
-            results.append("\n\n");
-            results.append("Source Log File: ").append(filePath).append("\n");
-            results.append("Search Time: ").append(LocalDateTime.now()).append("\n\n");
-            results.append("Matches Found:\n");
-            results.append("-------------------\n");
-            
+
             while ((line = reader.readLine()) != null) {
                 lineNumber++;
-                boolean matches = matchesCriteria(line, searchGroups);
-                
+                boolean matches = compiled.matches(line);
+
                 if (matches) {
                     matchCount++;
-                    results.append("Line ").append(lineNumber).append(": ").append(line).append("\n");
+                    sink.accept(new SearchMatch(lineNumber, line, true));
                     if (includeAfterMatch) {
                         includeRemaining = true;
                     }
                 } else if (includeRemaining) {
-                    results.append("Line ").append(lineNumber).append(": ").append(line).append("\n");
+                    sink.accept(new SearchMatch(lineNumber, line, false));
+                }
+
+                if (lineNumber % PROGRESS_INTERVAL == 0) {
+                    task.checkCancelled();
+                    task.addProgress(input.count - reportedBytes, PROGRESS_INTERVAL, matchCount - reportedMatches);
+                    reportedBytes = input.count;
+                    reportedMatches = matchCount;
                 }
             }
-            
-            // Write summary
-            results.append("\n-------------------\n");
-            results.append("Total Matches Found: ").append(matchCount);
-            
-            resultArea.setText(results.toString());
-            
-        } catch (FileNotFoundException e) {
-            resultArea.setText("Error: File not found - " + filePath);
-        } catch (IOException e) {
-            resultArea.setText("Error reading the file: " + e.getMessage());
+            task.addProgress(input.count - reportedBytes, lineNumber % PROGRESS_INTERVAL, matchCount - reportedMatches);
+            return matchCount;
+        }
+    }
+
+    /**
+     * Searches the file and writes the formatted results (header, "Line N: text" lines and
+     * summary) to the writer as they are found.
+     */
+    public int search(String filePath, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                      Writer writer) throws IOException {
+        writer.write(formatHeader(filePath, searchGroups, includeAfterMatch));
+        int matchCount;
+        try {
+            matchCount = search(filePath, searchGroups, includeAfterMatch, match -> {
+                try {
+                    writer.write(match.toString());
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.write(formatSummary(matchCount));
+        return matchCount;
+    }
+
+    /**
+     * Starts searching several files on a background thread; see
+     * {@link #search(List, List, boolean, FileOrder, Consumer)}. Progress and throughput on the
+     * task cover all the files.
+     */
+    public SearchTask startSearch(List<String> filePaths, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                                  FileOrder order, Consumer<SearchMatch> sink) {
+        SearchTask task = new SearchTask(totalLength(filePaths));
+        List<String> files = new ArrayList<>(filePaths);
+        List<SearchGroup> groups = new ArrayList<>(searchGroups);
+        SEARCH_EXECUTOR.execute(() -> {
+            try {
+                task.getResult().complete(searchFiles(files, groups, includeAfterMatch, order, sink, task));
+            } catch (IOException | RuntimeException e) {
+                task.getResult().completeExceptionally(e);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Searches several files, up to {@link #FILE_SEARCH_PARALLELISM} at a time, and passes the
+     * results to the sink on the calling thread. Each result carries its file path. With
+     * {@link FileOrder#BY_FILE} the files' results come one file after another in list order:
+     * the first unfinished file's as they are found, while the files searched ahead of it spool
+     * theirs to temporary files. With {@link FileOrder#BY_TIMESTAMP} results are spooled and
+     * interleaved by their leading timestamps once every file is searched (see
+     * {@link TimestampMerge}), so output only starts at the end. Either way memory use does not
+     * grow with the number of results. includeAfterMatch applies within each file. Returns the
+     * total number of matching lines; an error reading any file fails the whole search.
+     */
+    public int search(List<String> filePaths, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                      FileOrder order, Consumer<SearchMatch> sink) throws IOException {
+        return searchFiles(filePaths, searchGroups, includeAfterMatch, order, sink, new SearchTask(totalLength(filePaths)));
+    }
+
+    private int searchFiles(List<String> filePaths, List<SearchGroup> searchGroups, boolean includeAfterMatch,
+                            FileOrder order, Consumer<SearchMatch> sink, SearchTask task) throws IOException {
+        // Only a window of files is searched ahead of the one being output, which bounds the
+        // spool files and threads in use
+        int window = FILE_SEARCH_PARALLELISM * 2;
+        Deque<Future<?>> pending = new ArrayDeque<>();
+        Deque<FileResults> pendingResults = new ArrayDeque<>();
+        TimestampMerge merge = order == FileOrder.BY_TIMESTAMP ? new TimestampMerge() : null;
+        int next = 0;
+        int[] matchCount = {0};
+        try {
+            while (next < filePaths.size() || !pending.isEmpty()) {
+                while (next < filePaths.size() && pending.size() < window) {
+                    String filePath = filePaths.get(next++);
+                    TimestampMerge.Spool spool = merge != null ? merge.addFile() : null;
+                    FileResults results = merge == null ? new FileResults() : null;
+                    pending.add(FILE_SEARCH_EXECUTOR.submit(() -> {
+                        try {
+                            search(filePath, searchGroups, includeAfterMatch, match -> {
+                                SearchMatch withPath = new SearchMatch(filePath, match.getLineNumber(), match.getLine(), match.isMatch());
+                                try {
+                                    if (spool != null) {
+                                        spool.add(withPath);
+                                    } else {
+                                        results.add(withPath);
+                                    }
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            }, task);
+                            if (spool != null) {
+                                spool.finish();
+                            }
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        } finally {
+                            if (results != null) {
+                                results.finish();
+                            }
+                        }
+                        return null;
+                    }));
+                    if (results != null) {
+                        pendingResults.add(results);
+                    }
+                }
+                Future<?> head = pending.poll();
+                if (merge == null) {
+                    FileResults results = pendingResults.peek();
+                    results.drainTo(match -> {
+                        if (match.isMatch()) {
+                            matchCount[0]++;
+                        }
+                        sink.accept(match);
+                    }, head);
+                    pendingResults.poll().close();
+                }
+                await(head);
+            }
+            if (merge != null) {
+                matchCount[0] = merge.getMatchCount();
+                merge.mergeTo(sink, task);
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            pendingResults.forEach(FileResults::close);
+            if (merge != null) {
+                merge.close();
+            }
+        }
+        return matchCount[0];
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Search interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static long totalLength(List<String> filePaths) {
+        long total = 0;
+        for (String filePath : filePaths) {
+            total += new File(filePath).length();
         }
+        return total;
     }
 
-    private boolean matchesCriteria(String line, List<SearchGroup> searchGroups) {
-        if (searchGroups.isEmpty()) {
-            return true;
+    /**
+     * Returns the log files a path names, sorted: the file itself, every file under a
+     * directory, or the files matching a glob pattern such as "logs/*.log" or
+     * "incident/**&#47;*.gz" ("**" crosses directories). Index files are left out.
+     */
+    public static List<String> listLogFiles(String path) throws IOException {
+        int wildcard = indexOfWildcard(path);
+        if (wildcard < 0) {
+            Path file = Paths.get(path);
+            if (Files.isDirectory(file)) {
+                return walk(file, Integer.MAX_VALUE, candidate -> true, false);
+            }
+            return Files.isRegularFile(file) ? Collections.singletonList(path) : Collections.emptyList();
         }
+        int separator = Math.max(path.lastIndexOf('/', wildcard), path.lastIndexOf(File.separatorChar, wildcard));
+        // Files under the current directory are listed without a "./" prefix
+        boolean relativeToCurrent = separator < 0;
+        Path root = relativeToCurrent ? Paths.get(".") : Paths.get(path.substring(0, separator + 1));
+        String pattern = path.substring(separator + 1);
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        int depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("[/\\\\]", -1).length;
+        return walk(root, depth, candidate -> matcher.matches(root.relativize(candidate)), relativeToCurrent);
+    }
+
+    private static List<String> walk(Path root, int depth, Predicate<Path> filter, boolean relative) throws IOException {
+        try (Stream<Path> paths = Files.walk(root, depth)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(filter)
+                    .filter(candidate -> !candidate.toString().endsWith(LogIndex.EXTENSION))
+                    .map(candidate -> relative ? root.relativize(candidate) : candidate)
+                    .sorted()
+                    .map(Path::toString)
+                    .collect(Collectors.toList());
+        }
+    }
 
-        SearchGroup firstGroup = searchGroups.get(0);
-        boolean result = containsText(line, firstGroup);
+    private static int indexOfWildcard(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            if ("*?[{".indexOf(path.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        for (int i = 1; i < searchGroups.size(); i++) {
-            SearchGroup group = searchGroups.get(i);
-            boolean matches = containsText(line, group);
-            
-            if (group.getOperation().equals("AND")) {
-                result = result && matches;
-            } else { // OR
-                result = result || matches;
+    public static String formatHeader(String filePath, List<SearchGroup> searchGroups, boolean includeAfterMatch) {
+        StringBuilder results = new StringBuilder();
+        results.append("Search Results for expression:\n");
+        for (int i = 0; i < searchGroups.size(); i++) {
+            if (i > 0) {
+                results.append(" ");
             }
+            results.append(searchGroups.get(i).toString());
+        }
+        if (includeAfterMatch) {
+            results.append("\n(Including all lines after matches)");
+        }
+        results.append("\n\n");
+        results.append("Source Log File: ").append(filePath).append("\n");
+        results.append("Search Time: ").append(LocalDateTime.now()).append("\n\n");
+        results.append("Matches Found:\n");
+        results.append("-------------------\n");
+        return results.toString();
+    }
+
+    public static String formatSummary(int matchCount) {
+        return "\n-------------------\n" + "Total Matches Found: " + matchCount;
+    }
+
+    /**
+     * Returns the text that ends the results of a search started with startSearch: the summary,
+     * or why the search stopped. matchCount and error are as passed to the task result's
+     * whenComplete.
+     */
+    public static String formatOutcome(SearchTask task, String filePath, Integer matchCount, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause == null) {
+            return formatSummary(matchCount);
+        } else if (cause instanceof CancellationException) {
+            return "\n-------------------\nSearch cancelled after " + task.getMatchCount() + " matches";
+        } else if (cause instanceof FileNotFoundException) {
+            return "Error: File not found - " + filePath;
+        }
+        return "Error reading the file: " + cause.getMessage();
+    }
+
+    /**
+     * Builds (or rebuilds) the trigram index next to the log file. Later searches of the file
+     * only scan the parts of it the index cannot rule out, until the file changes.
+     */
+    public LogIndex buildIndex(String filePath) throws IOException {
+        if (CompressedLogs.detect(filePath).isCompressed()) {
+            throw new IOException("Compressed logs cannot be indexed; searches of them always read the whole file");
+        }
+        LogIndex built = LogIndex.build(filePath);
+        synchronized (this) {
+            index = built;
+            indexPath = filePath;
+        }
+        return built;
+    }
+
+    /**
+     * True if the file has an index that is up to date.
+     */
+    public boolean hasIndex(String filePath) {
+        try {
+            return getIndex(filePath) != null;
+        } catch (IOException e) {
+            return false;
         }
+    }
 
-        return result;
+    private synchronized LogIndex getIndex(String filePath) throws IOException {
+        if (index == null || !filePath.equals(indexPath) || !index.isCurrent(filePath)) {
+            index = LogIndex.open(filePath);
+            indexPath = filePath;
+        }
+        return index;
     }
 
-    private boolean containsText(String line, SearchGroup group) {
-        if (group.isUseRegex()) {
-            return group.pattern.matcher(line).find();
-        } else if (group.isCaseSensitive()) {
-            return line.contains(group.getText());
-        } else {
-            return line.toLowerCase().contains(group.getText().toLowerCase());
+    // Counts the bytes read so the sequential search can report progress. Decompression may
+    // read on another thread, hence volatile.
+    private static class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
         }
     }
 
@@ -1,9 +1,13 @@
 package com.kubectl.logParser;
 
+import com.kubectl.LogLineBatcher;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -11,17 +15,24 @@ import java.util.List;
 import java.util.regex.PatternSyntaxException;
 
 public class LogParserUI extends JFrame {
-    private static final String PRESETS_FILE = System.getProperty("user.home") + File.separator + "logparser_presets.dat";
+    private static final String PRESETS_FILE = SearchPreset.DEFAULT_PRESETS_FILE;
     private JTextField filePathField;
     private JTextArea resultArea;
+    private LogLineBatcher resultBatcher;
     private JButton browseButton;
     private JButton searchButton;
     private JButton exportButton;
+    private JButton cancelButton;
+    private JButton buildIndexButton;
+    private JLabel statusLabel;
+    private Timer progressTimer;
+    private SearchTask currentSearch;
     private JButton loadPresetButton;
     private JButton savePresetButton;
     private JButton addGroupButton;
     private JPanel searchGroupsPanel;
     private JCheckBox includeAfterCheck;
+    private JCheckBox mergeByTimeCheck;
     private List<LogParser.SearchGroup> searchGroups;
     private LogParser logParser;
     private List<SearchPreset> presets;
@@ -84,21 +95,34 @@ public class LogParserUI extends JFrame {
         filePanel.setBorder(new EmptyBorder(5, 0, 5, 0));
         
         filePathField = new JTextField();
+        filePathField.setToolTipText("A log file, a directory, a glob such as logs/*.log, or several of these separated by ';'");
         browseButton = new JButton("Browse");
+        mergeByTimeCheck = new JCheckBox("Merge by Time");
+        mergeByTimeCheck.setToolTipText("When searching several files, interleave their results by timestamp");
         
         JPanel fileLabelPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         fileLabelPanel.add(new JLabel("Log File:"));
+
+        JPanel fileButtonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        fileButtonPanel.add(mergeByTimeCheck);
+        fileButtonPanel.add(browseButton);
         
         filePanel.add(fileLabelPanel, BorderLayout.WEST);
         filePanel.add(filePathField, BorderLayout.CENTER);
-        filePanel.add(browseButton, BorderLayout.EAST);
+        filePanel.add(fileButtonPanel, BorderLayout.EAST);
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         searchButton = new JButton("Search");
         exportButton = new JButton("Export Results");
         exportButton.setEnabled(false);
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
         buttonPanel.add(searchButton);
+        buttonPanel.add(cancelButton);
         buttonPanel.add(exportButton);
+        buildIndexButton = new JButton("Build Index");
+        buildIndexButton.setToolTipText("Index the log file so repeat searches only read the parts that can match");
+        buttonPanel.add(buildIndexButton);
 
         topPanel.add(searchPanel, BorderLayout.CENTER);
         topPanel.add(filePanel, BorderLayout.SOUTH);
@@ -106,12 +130,21 @@ public class LogParserUI extends JFrame {
 
         resultArea = new JTextArea();
         resultArea.setEditable(false);
+        resultBatcher = new LogLineBatcher(lines -> resultArea.append(String.join("\n", lines) + "\n"));
         JScrollPane scrollPane = new JScrollPane(resultArea);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
 
         mainPanel.add(topPanel, BorderLayout.NORTH);
         mainPanel.add(scrollPane, BorderLayout.CENTER);
 
+        statusLabel = new JLabel(" ");
+        mainPanel.add(statusLabel, BorderLayout.SOUTH);
+        progressTimer = new Timer(250, e -> {
+            if (currentSearch != null) {
+                statusLabel.setText(currentSearch.describeProgress());
+            }
+        });
+
         add(mainPanel);
 
         setupEventListeners();
@@ -232,10 +265,15 @@ public class LogParserUI extends JFrame {
 
         browseButton.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+            fileChooser.setMultiSelectionEnabled(true);
             int result = fileChooser.showOpenDialog(this);
             if (result == JFileChooser.APPROVE_OPTION) {
-                File selectedFile = fileChooser.getSelectedFile();
-                filePathField.setText(selectedFile.getAbsolutePath());
+                List<String> paths = new ArrayList<>();
+                for (File selectedFile : fileChooser.getSelectedFiles()) {
+                    paths.add(selectedFile.getAbsolutePath());
+                }
+                filePathField.setText(String.join("; ", paths));
             }
         });
 
@@ -252,26 +290,130 @@ public class LogParserUI extends JFrame {
                 return;
             }
 
-            new SwingWorker<Void, Void>() {
+            List<String> files;
+            try {
+                files = listFiles(filePath);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Cannot list " + filePath + ": " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (files.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No log files found: " + filePath, "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // A directory, a glob or several paths are searched as a file set
+            boolean singleFile = files.size() == 1 && files.get(0).equals(filePath);
+
+            List<LogParser.SearchGroup> groups = new ArrayList<>(searchGroups);
+            boolean includeAfter = includeAfterCheck.isSelected();
+            searchButton.setEnabled(false);
+            exportButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            resultBatcher.clear();
+            resultBatcher.start();
+
+            // The search runs on a background thread; matches are streamed into the result area
+            SearchTask task;
+            if (singleFile) {
+                resultArea.setText(LogParser.formatHeader(filePath, groups, includeAfter));
+                task = logParser.startSearch(filePath, groups, includeAfter, match -> resultBatcher.add(match.toString()));
+            } else {
+                resultArea.setText(LogParser.formatHeader(files.size() + " files in " + filePath, groups, includeAfter));
+                boolean byTime = mergeByTimeCheck.isSelected();
+                String[] lastFile = {null};
+                task = logParser.startSearch(files, groups, includeAfter,
+                        byTime ? LogParser.FileOrder.BY_TIMESTAMP : LogParser.FileOrder.BY_FILE,
+                        match -> {
+                            if (byTime) {
+                                resultBatcher.add(new File(match.getFilePath()).getName() + ": " + match);
+                                return;
+                            }
+                            // Results come file by file; start each file's with a header
+                            if (!match.getFilePath().equals(lastFile[0])) {
+                                lastFile[0] = match.getFilePath();
+                                resultBatcher.add("\n==> " + match.getFilePath() + " <==");
+                            }
+                            resultBatcher.add(match.toString());
+                        });
+            }
+            currentSearch = task;
+            progressTimer.start();
+            task.getResult().whenComplete((count, error) ->
+                    SwingUtilities.invokeLater(() -> searchFinished(task, filePath, count, error)));
+        });
+
+        buildIndexButton.addActionListener(e -> {
+            String filePath = filePathField.getText().trim();
+            if (filePath.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please select a log file.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            // The field can name several files, as for a search; compressed ones cannot be indexed
+            List<String> files = new ArrayList<>();
+            try {
+                for (String file : listFiles(filePath)) {
+                    if (new File(file).isFile() && !CompressedLogs.detect(file).isCompressed()) {
+                        files.add(file);
+                    }
+                }
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Cannot list " + filePath + ": " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (files.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No uncompressed log files to index: " + filePath, "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            buildIndexButton.setEnabled(false);
+            statusLabel.setText("Building index for " + (files.size() == 1 ? files.get(0) : files.size() + " files") + "...");
+            long start = System.currentTimeMillis();
+            new SwingWorker<Long, String>() {
                 @Override
-                protected Void doInBackground() throws Exception {
-                    searchButton.setEnabled(false);
-                    exportButton.setEnabled(false);
-                    resultArea.setText("Searching...\n");
-                    logParser.searchInLogFile(filePath, searchGroups, resultArea, includeAfterCheck.isSelected());
-                    return null;
+                protected Long doInBackground() throws Exception {
+                    long blocks = 0;
+                    for (int i = 0; i < files.size(); i++) {
+                        if (files.size() > 1) {
+                            publish("Building index " + (i + 1) + " of " + files.size() + ": " + files.get(i) + "...");
+                        }
+                        blocks += logParser.buildIndex(files.get(i)).getBlockCount();
+                    }
+                    return blocks;
+                }
+
+                @Override
+                protected void process(List<String> messages) {
+                    statusLabel.setText(messages.get(messages.size() - 1));
                 }
 
                 @Override
                 protected void done() {
-                    searchButton.setEnabled(true);
-                    exportButton.setEnabled(true);
+                    try {
+                        long blocks = get();
+                        statusLabel.setText((files.size() == 1 ? "Index built" : files.size() + " indexes built")
+                                + " (" + blocks + " blocks) in " + (System.currentTimeMillis() - start) + " ms");
+                    } catch (ExecutionException ex) {
+                        statusLabel.setText(" ");
+                        JOptionPane.showMessageDialog(LogParserUI.this, "Failed to build index: " + ex.getCause().getMessage(),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    buildIndexButton.setEnabled(true);
                 }
             }.execute();
         });
 
+        cancelButton.addActionListener(e -> {
+            if (currentSearch != null) {
+                currentSearch.cancel();
+                cancelButton.setEnabled(false);
+            }
+        });
+
         exportButton.addActionListener(e -> {
-            if (resultArea.getText().isEmpty() || resultArea.getText().equals("Searching...\n")) {
+            if (resultArea.getDocument().getLength() == 0) {
                 JOptionPane.showMessageDialog(this, "No results to export.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
@@ -291,6 +433,34 @@ public class LogParserUI extends JFrame {
         updateSearchButtonState();
     }
 
+    /**
+     * Returns the files named in the file field: paths, directories or globs separated by ';'.
+     */
+    private static List<String> listFiles(String field) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String path : field.split(";")) {
+            if (!path.trim().isEmpty()) {
+                files.addAll(LogParser.listLogFiles(path.trim()));
+            }
+        }
+        return files;
+    }
+
+    private void searchFinished(SearchTask task, String filePath, Integer matchCount, Throwable error) {
+        progressTimer.stop();
+        // The outcome goes after the last results, which may take a few frames to arrive
+        resultBatcher.stop(() -> {
+            resultArea.append(LogParser.formatOutcome(task, filePath, matchCount, error));
+            exportButton.setEnabled(true);
+        });
+        statusLabel.setText(task.describeProgress() + " in " + task.getElapsedMillis() + " ms");
+        if (currentSearch == task) {
+            currentSearch = null;
+        }
+        searchButton.setEnabled(true);
+        cancelButton.setEnabled(false);
+    }
+
     public static void main(String[] args) {
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,325 @@
+package com.kubectl.logParser;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Command line front end for {@link LogParser}, for cron jobs and CI on machines without a
+ * display. It runs the same searches as the log parser window without loading Swing:
+ *
+ * <pre>
+ * java -cp kubectl-connector-jar-with-dependencies.jar com.kubectl.logParser.LogSearchCli \
+ *     --preset "Payment errors" "/var/log/archive/**&#47;*.log"
+ * </pre>
+ *
+ * Files may be given as paths, directories or quoted glob patterns, and are searched several at
+ * a time. Results go to stdout; anything else, including errors, goes to stderr. Exits with 0
+ * if any line matched, 1 if none did and 2 on errors, like grep.
+ */
+public class LogSearchCli {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final String USAGE = String.join("\n",
+            "Usage: LogSearchCli (--preset NAME | --expr EXPRESSION) [options] FILE|GLOB...",
+            "",
+            "  --preset NAME       search with a preset saved in the log parser window",
+            "  --presets FILE      preset file (default " + SearchPreset.DEFAULT_PRESETS_FILE + ")",
+            "  --list-presets      print the saved preset names and exit",
+            "  --expr EXPRESSION   terms joined by AND / OR, AND binding tighter; a term is a word,",
+            "                      \"quoted text\" or /regex/, e.g.  ERROR AND \"timed out\" OR /5\\d\\d/",
+            "  --case-sensitive    match --expr terms case-sensitively",
+            "  --after             include every line after the first match",
+            "  --format FORMAT     grep (file:line:text, the default), report (as exported by the",
+            "                      log parser window), count (file and match count) or json (one",
+            "                      object per line)",
+            "  --by-time           interleave the files' results by their leading timestamps instead",
+            "                      of listing them file by file (grep and json formats)",
+            "  --sequential        do not use the parallel engine for large files");
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        // Presets and the parser log to System.out; keep stdout for results only
+        OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        try {
+            System.exit(run(args, stdout));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Runs the command and returns the exit status.
+     */
+    static int run(String[] args, OutputStream stdout) {
+        String presetName = null;
+        String presetsFile = SearchPreset.DEFAULT_PRESETS_FILE;
+        String expression = null;
+        boolean caseSensitive = false;
+        boolean includeAfterMatch = false;
+        boolean listPresets = false;
+        boolean sequential = false;
+        boolean byTime = false;
+        String format = "grep";
+        List<String> patterns = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--preset":
+                    presetName = value(args, ++i);
+                    break;
+                case "--presets":
+                    presetsFile = value(args, ++i);
+                    break;
+                case "--list-presets":
+                    listPresets = true;
+                    break;
+                case "--expr":
+                    expression = value(args, ++i);
+                    break;
+                case "--case-sensitive":
+                    caseSensitive = true;
+                    break;
+                case "--after":
+                    includeAfterMatch = true;
+                    break;
+                case "--format":
+                    format = value(args, ++i);
+                    break;
+                case "--by-time":
+                    byTime = true;
+                    break;
+                case "--sequential":
+                    sequential = true;
+                    break;
+                case "-h":
+                case "--help":
+                    System.err.println(USAGE);
+                    return 0;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    patterns.add(args[i]);
+            }
+        }
+
+        List<SearchPreset> presets = presetName != null || listPresets
+                ? SearchPreset.loadPresets(presetsFile) : new ArrayList<>();
+        Writer out = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+        if (listPresets) {
+            try {
+                for (SearchPreset preset : presets) {
+                    out.write(preset.getName() + "\n");
+                }
+                out.flush();
+            } catch (IOException e) {
+                return 2;
+            }
+            return 0;
+        }
+
+        List<LogParser.SearchGroup> groups;
+        if (presetName != null && expression != null) {
+            throw new IllegalArgumentException("Use either --preset or --expr, not both");
+        } else if (presetName != null) {
+            SearchPreset preset = findPreset(presets, presetName);
+            groups = preset.getSearchGroups();
+            includeAfterMatch |= preset.isIncludeAfterMatch();
+        } else if (expression != null) {
+            groups = parseExpression(expression, caseSensitive);
+        } else {
+            throw new IllegalArgumentException("No search given; use --preset or --expr");
+        }
+        if (!List.of("grep", "report", "count", "json").contains(format)) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("No files given");
+        }
+
+        List<String> files = new ArrayList<>();
+        boolean failed = false;
+        for (String pattern : patterns) {
+            try {
+                List<String> found = LogParser.listLogFiles(pattern);
+                if (found.isEmpty()) {
+                    System.err.println(pattern + ": no such file");
+                    failed = true;
+                }
+                files.addAll(found);
+            } catch (IOException e) {
+                System.err.println(pattern + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+
+        LogParser parser = new LogParser();
+        parser.setParallelSearch(!sequential);
+        LogParser.FileOrder order = byTime ? LogParser.FileOrder.BY_TIMESTAMP : LogParser.FileOrder.BY_FILE;
+        int matchCount = 0;
+        try {
+            if ("report".equals(format)) {
+                // One report per file, as the log parser window exports them
+                for (String file : files) {
+                    try {
+                        matchCount += parser.search(file, groups, includeAfterMatch, out);
+                        out.write("\n\n");
+                    } catch (IOException e) {
+                        out.flush();
+                        System.err.println(file + ": " + e.getMessage());
+                        failed = true;
+                    }
+                }
+            } else if (!files.isEmpty()) {
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                files.forEach(file -> counts.put(file, 0));
+                String lineFormat = format;
+                matchCount = parser.search(files, groups, includeAfterMatch, order, match -> {
+                    if ("count".equals(lineFormat)) {
+                        counts.merge(match.getFilePath(), match.isMatch() ? 1 : 0, Integer::sum);
+                        return;
+                    }
+                    try {
+                        out.write(format(match, lineFormat));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if ("count".equals(format)) {
+                    for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                        out.write(count.getKey() + "\t" + count.getValue() + "\n");
+                    }
+                }
+            }
+            out.flush();
+        } catch (UncheckedIOException e) {
+            // stdout closed, e.g. piped into head
+            return failed ? 2 : 0;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        return failed ? 2 : matchCount > 0 ? 0 : 1;
+    }
+
+    private static String format(SearchMatch match, String format) {
+        String file = match.getFilePath();
+        if ("json".equals(format)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("file", file);
+            json.put("line", match.getLineNumber());
+            json.put("match", match.isMatch());
+            json.put("text", match.getLine());
+            return GSON.toJson(json) + "\n";
+        }
+        // Lines only included because they follow a match get '-' like grep's context lines
+        return file + (match.isMatch() ? ":" : "-") + match.getLineNumber()
+                + (match.isMatch() ? ":" : "-") + match.getLine() + "\n";
+    }
+
+    private static SearchPreset findPreset(List<SearchPreset> presets, String name) {
+        for (SearchPreset preset : presets) {
+            if (preset.getName().equals(name)) {
+                return preset;
+            }
+        }
+        throw new IllegalArgumentException("No preset named '" + name + "'; saved presets: "
+                + presets.stream().map(SearchPreset::getName).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Parses an expression such as {@code ERROR AND "timed out" OR /5\d\d/} into search
+     * groups. Terms are words, double-quoted text (with \" and \\ escapes) or /regex/ (with \/
+     * for a slash), joined by AND or OR.
+     */
+    static List<LogParser.SearchGroup> parseExpression(String expression, boolean caseSensitive) {
+        List<LogParser.SearchGroup> groups = new ArrayList<>();
+        String operation = "";
+        boolean expectTerm = true;
+        int pos = 0;
+        while (true) {
+            while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+                pos++;
+            }
+            if (pos == expression.length()) {
+                break;
+            }
+            char c = expression.charAt(pos);
+            StringBuilder text = new StringBuilder();
+            boolean regex = false;
+            boolean quoted = c == '"' || c == '/';
+            if (quoted) {
+                regex = c == '/';
+                pos++;
+                while (pos < expression.length() && expression.charAt(pos) != c) {
+                    char next = expression.charAt(pos++);
+                    if (next == '\\' && pos < expression.length()) {
+                        char escaped = expression.charAt(pos++);
+                        // Regexes keep their escapes, except the one for the delimiter
+                        if (regex && escaped != '/') {
+                            text.append('\\');
+                        }
+                        next = escaped;
+                    }
+                    text.append(next);
+                }
+                if (pos == expression.length()) {
+                    throw new IllegalArgumentException("Unterminated " + c + " in expression: " + expression);
+                }
+                pos++;
+            } else {
+                while (pos < expression.length() && !Character.isWhitespace(expression.charAt(pos))) {
+                    text.append(expression.charAt(pos++));
+                }
+            }
+
+            String token = text.toString();
+            if (!quoted && (token.equals("AND") || token.equals("OR"))) {
+                if (expectTerm) {
+                    throw new IllegalArgumentException("Expected a term before " + token + " in expression: " + expression);
+                }
+                operation = token;
+                expectTerm = true;
+                continue;
+            }
+            if (!expectTerm) {
+                throw new IllegalArgumentException("Expected AND or OR before '" + token + "' in expression: " + expression);
+            }
+            try {
+                groups.add(new LogParser.SearchGroup(token, operation, caseSensitive, regex));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid regex /" + token + "/: " + e.getMessage());
+            }
+            expectTerm = false;
+        }
+        if (expectTerm) {
+            throw new IllegalArgumentException("Incomplete expression: " + expression);
+        }
+        return groups;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,93 @@
+package com.kubectl.logParser;
+
+import java.time.LocalDate;
+
+/**
+ * Reads the timestamp at the start of a log line, for putting lines from several logs in time
+ * order. Understands the ISO-8601 forms that Kubernetes and most services write, e.g.
+ * "2024-03-01T12:00:00.123456789Z" (kubectl logs --timestamps), "2024-03-01 12:00:00,123" and
+ * "[2024-03-01T12:00:00+02:00]". Timestamps without a zone are taken as UTC.
+ */
+public class LogTimestamps {
+    /** Returned for lines that do not start with a timestamp. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private LogTimestamps() {
+    }
+
+    /**
+     * Returns the line's leading timestamp in epoch milliseconds, or {@link #NONE}.
+     */
+    public static long parse(CharSequence line) {
+        int pos = line.length() > 0 && line.charAt(0) == '[' ? 1 : 0;
+        // yyyy-MM-dd?HH:mm:ss is 19 characters
+        if (line.length() < pos + 19
+                || line.charAt(pos + 4) != '-' || line.charAt(pos + 7) != '-'
+                || (line.charAt(pos + 10) != 'T' && line.charAt(pos + 10) != ' ')
+                || line.charAt(pos + 13) != ':' || line.charAt(pos + 16) != ':') {
+            return NONE;
+        }
+        int year = digits(line, pos, 4);
+        int month = digits(line, pos + 5, 2);
+        int day = digits(line, pos + 8, 2);
+        int hour = digits(line, pos + 11, 2);
+        int minute = digits(line, pos + 14, 2);
+        int second = digits(line, pos + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return NONE;
+        }
+        pos += 19;
+
+        int millis = 0;
+        if (pos < line.length() && (line.charAt(pos) == '.' || line.charAt(pos) == ',')) {
+            pos++;
+            int scale = 100;
+            while (pos < line.length() && isDigit(line.charAt(pos))) {
+                millis += (line.charAt(pos++) - '0') * scale;
+                scale /= 10;
+            }
+        }
+
+        int offsetMinutes = 0;
+        if (pos < line.length() && (line.charAt(pos) == '+' || line.charAt(pos) == '-')) {
+            int sign = line.charAt(pos) == '+' ? 1 : -1;
+            int hours = digits(line, pos + 1, 2);
+            int minutesAt = pos + 3 < line.length() && line.charAt(pos + 3) == ':' ? pos + 4 : pos + 3;
+            int minutes = digits(line, minutesAt, 2);
+            if (hours >= 0 && minutes >= 0) {
+                offsetMinutes = sign * (hours * 60 + minutes);
+            }
+        }
+
+        long epochDay;
+        try {
+            epochDay = LocalDate.of(year, month, day).toEpochDay();
+        } catch (RuntimeException e) {
+            // e.g. February 30th
+            return NONE;
+        }
+        long seconds = epochDay * 86_400 + hour * 3_600 + minute * 60 + Math.min(second, 59) - offsetMinutes * 60L;
+        return seconds * 1000 + millis;
+    }
+
+    // Parses count digits at pos, or returns -1
+    private static int digits(CharSequence text, int pos, int count) {
+        if (pos + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
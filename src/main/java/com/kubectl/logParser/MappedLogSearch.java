@@ -0,0 +1,346 @@
+package com.kubectl.logParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Searches a large file by memory-mapping it, splitting it into chunks that end on line
+ * boundaries and scanning the chunks in parallel on a fork-join pool. Results are merged
+ * back in file order with the same line numbers a sequential read would give. Each chunk's
+ * lines are handed to the consumer as soon as it and all chunks before it are done.
+ *
+ * When the search allows it, lines are matched on their raw bytes; otherwise they are matched
+ * through reused text buffers. Only the lines that end up in the results become Strings.
+ */
+public class MappedLogSearch {
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    // Cancellation is checked once every this many lines (plus one)
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    private final ForkJoinPool pool;
+
+    public MappedLogSearch() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MappedLogSearch(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Passes every matching line (and, with includeAfterMatch, every line after the first
+     * match) to the consumer in file order and returns the number of matching lines. Progress
+     * is reported to the task as chunks are merged, and the scan stops with a
+     * CancellationException once the task is cancelled.
+     */
+    public int search(String filePath, CompiledSearch matcher, boolean includeAfterMatch, Consumer<SearchMatch> results,
+                      SearchTask task) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            return search(channel, split(channel), matcher, includeAfterMatch, results, task);
+        }
+    }
+
+    /**
+     * Searches the given chunks of an open file, in order. Chunks that are not candidates are
+     * known to hold no match (from an index) and are only read once an earlier match has
+     * turned on includeAfterMatch.
+     */
+    int search(FileChannel channel, List<Chunk> chunks, CompiledSearch matcher, boolean includeAfterMatch,
+               Consumer<SearchMatch> results, SearchTask task) throws IOException {
+        // Only a window of chunks is scanned ahead of the merge, which bounds how many
+        // chunk results are held in memory at once
+        int window = Math.max(2, pool.getParallelism() * 2);
+        List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        int submitted = 0;
+        int inFlight = 0;
+
+        long lineOffset = 0;
+        int matchCount = 0;
+        boolean includeRemaining = false;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                task.checkCancelled();
+                while (submitted < chunks.size() && inFlight < window) {
+                    Chunk next = chunks.get(submitted);
+                    if (next.candidate || includeRemaining) {
+                        tasks.set(submitted, submit(channel, next, matcher, includeAfterMatch, includeRemaining, task));
+                        inFlight++;
+                    }
+                    submitted++;
+                }
+
+                Chunk chunk = chunks.get(i);
+                if (chunk.firstLine >= 0) {
+                    lineOffset = chunk.firstLine;
+                }
+                ForkJoinTask<ChunkResult> scanned = tasks.set(i, null);
+                ChunkResult result;
+                if (scanned != null) {
+                    inFlight--;
+                    result = join(scanned);
+                    if (includeRemaining && !result.includeAll) {
+                        // Only known once earlier chunks are merged: every line of this chunk follows a match
+                        result = scan(channel, chunk.start, chunk.end, matcher, true, true, task);
+                    }
+                } else if (includeRemaining) {
+                    result = scan(channel, chunk.start, chunk.end, matcher, true, true, task);
+                } else {
+                    task.addProgress(chunk.end - chunk.start, 0, 0);
+                    continue;
+                }
+
+                for (SearchMatch match : result.matches) {
+                    results.accept(new SearchMatch(lineOffset + match.getLineNumber(), match.getLine(), match.isMatch()));
+                }
+                matchCount += result.matchCount;
+                includeRemaining |= includeAfterMatch && result.matchCount > 0;
+                lineOffset += result.lineCount;
+                task.addProgress(chunk.end - chunk.start, result.lineCount, result.matchCount);
+            }
+        } finally {
+            for (ForkJoinTask<ChunkResult> pending : tasks) {
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            }
+        }
+        return matchCount;
+    }
+
+    private ForkJoinTask<ChunkResult> submit(FileChannel channel, Chunk chunk, CompiledSearch matcher,
+                                             boolean includeAfterMatch, boolean includeAll, SearchTask task) {
+        return pool.submit(() -> scan(channel, chunk.start, chunk.end, matcher, includeAfterMatch, includeAll, task));
+    }
+
+    // Chunk boundaries are moved forward to just past the next newline
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + CHUNK_SIZE, size);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = indexOf(probe, (byte) '\n', read);
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            chunks.add(new Chunk(start, Math.min(end, size), start == 0 ? 0 : -1, true));
+            start = Math.min(end, size);
+        }
+        return chunks;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int limit) {
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ChunkResult scan(FileChannel channel, long start, long end, CompiledSearch matcher,
+                             boolean includeAfterMatch, boolean includeAll, SearchTask task) {
+        ChunkResult result = new ChunkResult(includeAll);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer view = buffer.duplicate();
+        AsciiLine asciiLine = new AsciiLine(buffer);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(1024);
+        boolean includeRemaining = includeAll;
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            // Find the line end, noting on the way whether any byte is non-ASCII
+            int lineEnd = lineStart;
+            int highBits = 0;
+            byte b;
+            while (lineEnd < limit && (b = buffer.get(lineEnd)) != '\n') {
+                highBits |= b;
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if ((++result.lineCount & CANCEL_CHECK_MASK) == 0) {
+                task.checkCancelled();
+            }
+
+            // Lines that cannot be matched on bytes are matched as text without allocating: ASCII
+            // lines through a view of the mapped bytes, others decoded into a reused buffer
+            CharSequence text = null;
+            boolean ascii = highBits >= 0;
+            boolean matches;
+            if (matcher.canMatchBytes(ascii)) {
+                matches = matcher.matches(buffer, lineStart, lineEnd);
+            } else {
+                if (ascii) {
+                    text = asciiLine.reset(lineStart, lineEnd);
+                } else {
+                    chars = decode(decoder, view, lineStart, lineEnd, chars);
+                    text = chars;
+                }
+                matches = matcher.matches(text);
+            }
+
+            if (matches || includeRemaining) {
+                String line;
+                if (text != null) {
+                    line = text.toString();
+                } else if (ascii) {
+                    line = asciiLine.reset(lineStart, lineEnd).toString();
+                } else {
+                    chars = decode(decoder, view, lineStart, lineEnd, chars);
+                    line = chars.toString();
+                }
+                if (matches) {
+                    result.matchCount++;
+                    includeRemaining = includeAfterMatch;
+                }
+                result.matches.add(new SearchMatch(result.lineCount, line, matches));
+            }
+            lineStart = next;
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the UTF-8 bytes in [from, to) into chars, growing it if needed, and returns the
+     * buffer flipped for reading. Malformed input is replaced, as new String(bytes) would do.
+     */
+    private static CharBuffer decode(CharsetDecoder decoder, ByteBuffer view, int from, int to, CharBuffer chars) {
+        // UTF-8 never decodes to more chars than it has bytes
+        if (chars.capacity() < to - from) {
+            chars = CharBuffer.allocate(Math.max(to - from, chars.capacity() * 2));
+        }
+        chars.clear();
+        view.limit(to).position(from);
+        decoder.reset();
+        decoder.decode(view, chars, true);
+        decoder.flush(chars);
+        view.limit(view.capacity());
+        chars.flip();
+        return chars;
+    }
+
+    /**
+     * A line of pure ASCII in the mapped buffer, read as chars without copying. Reset for each
+     * line.
+     */
+    private static class AsciiLine implements CharSequence {
+        private final ByteBuffer buffer;
+        // For bulk reads, which need a position
+        private final ByteBuffer copy;
+        private int from;
+        private int length;
+
+        AsciiLine(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.copy = buffer.duplicate();
+        }
+
+        AsciiLine reset(int from, int to) {
+            this.from = from;
+            this.length = to - from;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) buffer.get(from + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            copy.position(from);
+            copy.get(bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static ChunkResult join(ForkJoinTask<ChunkResult> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A line-aligned byte range [start, end) of the file. firstLine is the 0-based number of
+     * its first line, or -1 to continue from the chunk before it.
+     */
+    static class Chunk {
+        final long start;
+        final long end;
+        final long firstLine;
+        final boolean candidate;
+
+        Chunk(long start, long end, long firstLine, boolean candidate) {
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+            this.candidate = candidate;
+        }
+    }
+
+    private static class ChunkResult {
+        final boolean includeAll;
+        long lineCount;
+        int matchCount;
+        // Line numbers are relative to the chunk
+        final List<SearchMatch> matches = new ArrayList<>();
+
+        ChunkResult(boolean includeAll) {
+            this.includeAll = includeAll;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.kubectl.logParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Search results written to a temporary file, so a multi-file search can hold results it
+ * cannot output yet without keeping them in memory. Written by one thread, then read back in
+ * order once finished. Each record is a timestamp (for {@link TimestampMerge}), the path, line
+ * number, match flag and line.
+ */
+class MatchSpool implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final DataOutputStream out;
+
+    MatchSpool() throws IOException {
+        this.file = File.createTempFile("log-search-", ".spool");
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    void write(long timestamp, SearchMatch match) throws IOException {
+        byte[] line = match.getLine().getBytes(StandardCharsets.UTF_8);
+        out.writeLong(timestamp);
+        out.writeUTF(match.getFilePath() != null ? match.getFilePath() : "");
+        out.writeLong(match.getLineNumber());
+        out.writeBoolean(match.isMatch());
+        out.writeInt(line.length);
+        out.write(line);
+    }
+
+    /**
+     * Flushes what was written; nothing more may be written after this.
+     */
+    void finish() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Reads the records back from the start. The spool must be finished.
+     */
+    Reader read() throws IOException {
+        return new Reader(file);
+    }
+
+    /**
+     * Deletes the file.
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Only the temporary file is lost
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    static class Reader implements Closeable {
+        private final DataInputStream in;
+        private long timestamp;
+        private SearchMatch match;
+
+        private Reader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+
+        /**
+         * Reads the next record, returning false at the end of the spool.
+         */
+        boolean next() throws IOException {
+            try {
+                timestamp = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            String filePath = in.readUTF();
+            long lineNumber = in.readLong();
+            boolean isMatch = in.readBoolean();
+            byte[] line = new byte[in.readInt()];
+            in.readFully(line);
+            match = new SearchMatch(filePath.isEmpty() ? null : filePath, lineNumber,
+                    new String(line, StandardCharsets.UTF_8), isMatch);
+            return true;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        SearchMatch getMatch() {
+            return match;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.kubectl.logParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds literal text that every match of a regular expression must contain, so lines without
+ * it can be rejected before running the regex. For "ERROR.*timeout" that is "timeout" (the
+ * longest required run); for "ERROR|FATAL" it is either "ERROR" or "FATAL".
+ *
+ * The analysis is conservative: anything it does not fully understand (classes, most escapes,
+ * optional parts) just ends the current run of literal characters, and inline flags give up
+ * on the whole expression.
+ */
+public class RegexLiterals {
+    private final String regex;
+    private int pos;
+    private boolean unsupported;
+    // Side results of group() and quantifier()
+    private String lastGroupLiteral;
+    private boolean repeated;
+
+    private RegexLiterals(String regex) {
+        this.regex = regex;
+    }
+
+    /**
+     * Returns literals of which every match contains at least one, or null if there are none.
+     * The literals have the expression's case sensitivity.
+     */
+    public static List<String> requiredLiterals(String regex) {
+        RegexLiterals parser = new RegexLiterals(regex);
+        List<String> literals;
+        try {
+            literals = parser.alternation();
+        } catch (RuntimeException e) {
+            // Syntax this parser does not follow; just means there is no prefilter
+            return null;
+        }
+        if (parser.unsupported || parser.pos != regex.length() || literals == null) {
+            return null;
+        }
+        return Collections.unmodifiableList(literals);
+    }
+
+    // alternation := sequence ('|' sequence)*; every branch needs a literal
+    private List<String> alternation() {
+        List<String> literals = new ArrayList<>();
+        boolean everyBranch = true;
+        while (true) {
+            String literal = sequence();
+            if (literal == null) {
+                everyBranch = false;
+            } else {
+                literals.add(literal);
+            }
+            if (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+            } else {
+                return everyBranch ? literals : null;
+            }
+        }
+    }
+
+    // Returns the longest run of literal characters every match of the sequence contains
+    private String sequence() {
+        StringBuilder run = new StringBuilder();
+        String best = null;
+        while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+            char c = regex.charAt(pos++);
+            String literal = null;
+            boolean zeroWidth = false;
+            String groupLiteral = null;
+            switch (c) {
+                case '\\':
+                    if (pos < regex.length() && "bBAzZG".indexOf(regex.charAt(pos)) >= 0) {
+                        pos++;
+                        zeroWidth = true;
+                    } else {
+                        literal = escape();
+                    }
+                    break;
+                case '^':
+                case '$':
+                    zeroWidth = true;
+                    break;
+                case '.':
+                    break;
+                case '[':
+                    skipClass();
+                    break;
+                case '{':
+                    // Java accepts a quantifier with nothing before it; it repeats the empty string
+                    pos--;
+                    zeroWidth = true;
+                    break;
+                case '(':
+                    if (group()) {
+                        zeroWidth = true;
+                    } else {
+                        groupLiteral = lastGroupLiteral;
+                    }
+                    break;
+                default:
+                    literal = codePointAt(pos - 1);
+                    pos += literal.length() - 1;
+            }
+
+            int minRepeats = quantifier();
+            if (zeroWidth) {
+                continue;
+            }
+            if (literal != null && !literal.isEmpty() && minRepeats == 1 && !repeated) {
+                run.append(literal);
+                continue;
+            }
+
+            // Anything else ends the current run; a literal that must occur at least once
+            // still counts up to its last character. The quantifier applies to a whole code
+            // point, so a supplementary character is dropped with both its halves.
+            if (literal != null && minRepeats >= 1) {
+                run.append(literal);
+            } else if (literal != null) {
+                run.append(literal, 0, literal.offsetByCodePoints(literal.length(), -1));
+            }
+            best = longer(best, run.toString());
+            run.setLength(0);
+            if (groupLiteral != null && minRepeats >= 1) {
+                best = longer(best, groupLiteral);
+            }
+        }
+        best = longer(best, run.toString());
+        return best == null || best.isEmpty() ? null : best;
+    }
+
+    /**
+     * Parses a group after its '('. Returns true for zero-width lookaround groups; otherwise
+     * sets lastGroupLiteral to the group's required literal (or null).
+     */
+    private boolean group() {
+        boolean lookaround = false;
+        if (regex.startsWith("?", pos)) {
+            if (regex.startsWith("?:", pos) || regex.startsWith("?>", pos)) {
+                pos += 2;
+            } else if (regex.startsWith("?=", pos) || regex.startsWith("?!", pos)) {
+                pos += 2;
+                lookaround = true;
+            } else if (regex.startsWith("?<=", pos) || regex.startsWith("?<!", pos)) {
+                pos += 3;
+                lookaround = true;
+            } else if (regex.startsWith("?<", pos)) {
+                int end = regex.indexOf('>', pos);
+                pos = end < 0 ? regex.length() : end + 1;
+            } else {
+                // Inline flags such as (?i) change how the rest of the expression matches
+                unsupported = true;
+                pos = regex.length();
+                return true;
+            }
+        }
+        List<String> inner = alternation();
+        if (pos < regex.length() && regex.charAt(pos) == ')') {
+            pos++;
+        } else {
+            unsupported = true;
+        }
+        lastGroupLiteral = inner != null && inner.size() == 1 ? inner.get(0) : null;
+        return lookaround;
+    }
+
+    /**
+     * Parses an escape after its backslash. Returns the literal text it stands for, or null
+     * for classes, references and anything else that is not a fixed character.
+     */
+    private String escape() {
+        if (pos >= regex.length()) {
+            return null;
+        }
+        char c = regex.charAt(pos++);
+        switch (c) {
+            case 'Q': {
+                int end = regex.indexOf("\\E", pos);
+                String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+                pos = end < 0 ? regex.length() : end + 2;
+                return quoted;
+            }
+            case 't':
+                return "\t";
+            case 'n':
+                return "\n";
+            case 'r':
+                return "\r";
+            case 'f':
+                return "\f";
+            case 'a':
+                return "\u0007";
+            case 'e':
+                return "\u001B";
+            case 'x':
+                if (regex.startsWith("{", pos)) {
+                    skipPast('}');
+                } else {
+                    pos = Math.min(pos + 2, regex.length());
+                }
+                return null;
+            case 'u':
+                pos = Math.min(pos + 4, regex.length());
+                return null;
+            case 'c':
+                pos = Math.min(pos + 1, regex.length());
+                return null;
+            case '0':
+                while (pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7') {
+                    pos++;
+                }
+                return null;
+            case 'p':
+            case 'P':
+            case 'N':
+                if (regex.startsWith("{", pos)) {
+                    skipPast('}');
+                } else {
+                    pos = Math.min(pos + 1, regex.length());
+                }
+                return null;
+            case 'k':
+                skipPast('>');
+                return null;
+            default:
+                if (Character.isDigit(c)) {
+                    while (pos < regex.length() && Character.isDigit(regex.charAt(pos))) {
+                        pos++;
+                    }
+                    return null;
+                }
+                // Other letters are classes (\d, \w, \s, ...); anything else is the character itself
+                String escaped = codePointAt(pos - 1);
+                pos += escaped.length() - 1;
+                return Character.isLetter(escaped.codePointAt(0)) ? null : escaped;
+        }
+    }
+
+    // Skips a character class after its '[', including nested classes and escapes
+    private void skipClass() {
+        int depth = 1;
+        if (regex.startsWith("^", pos)) {
+            pos++;
+        }
+        // A ']' right at the start is a literal member
+        if (regex.startsWith("]", pos)) {
+            pos++;
+        }
+        while (pos < regex.length() && depth > 0) {
+            char c = regex.charAt(pos++);
+            if (c == '\\') {
+                if (regex.startsWith("Q", pos)) {
+                    int end = regex.indexOf("\\E", pos);
+                    pos = end < 0 ? regex.length() : end + 2;
+                } else {
+                    pos++;
+                }
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Parses any quantifiers and returns the minimum number of repetitions they allow (1
+     * without a quantifier). Sets repeated when the atom may occur more than once. Java accepts
+     * stacked quantifiers such as "a{2}{0,3}", which multiply.
+     */
+    private int quantifier() {
+        repeated = false;
+        int min = 1;
+        while (pos < regex.length()) {
+            char c = regex.charAt(pos);
+            if (c == '?') {
+                min = 0;
+                pos++;
+            } else if (c == '*') {
+                min = 0;
+                repeated = true;
+                pos++;
+            } else if (c == '+') {
+                repeated = true;
+                pos++;
+            } else if (c == '{') {
+                int end = regex.indexOf('}', pos);
+                String[] bounds = regex.substring(pos + 1, end).split(",", -1);
+                pos = end + 1;
+                int boundMin = Integer.parseInt(bounds[0].trim());
+                min = boundMin == 0 ? 0 : min;
+                repeated |= bounds.length > 1 || boundMin > 1;
+            } else {
+                return min;
+            }
+            // Lazy and possessive modifiers
+            if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+                pos++;
+            }
+        }
+        return min;
+    }
+
+    // The character at index, with its low surrogate if it is the first half of a pair
+    private String codePointAt(int index) {
+        return regex.substring(index, regex.offsetByCodePoints(index, 1));
+    }
+
+    private void skipPast(char end) {
+        int index = regex.indexOf(end, pos);
+        pos = index < 0 ? regex.length() : index + 1;
+    }
+
+    private static String longer(String a, String b) {
+        if (a == null || b.length() > a.length()) {
+            return b;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,56 @@
+package com.kubectl.logParser;
+
+/**
+ * One line of search output: either a line that matched the expression, or (with "include
+ * lines after match") a line that follows a match.
+ */
+public class SearchMatch {
+    private final String filePath;
+    private final long lineNumber;
+    private final String line;
+    private final boolean match;
+
+    public SearchMatch(long lineNumber, String line, boolean match) {
+        this(null, lineNumber, line, match);
+    }
+
+    public SearchMatch(String filePath, long lineNumber, String line, boolean match) {
+        this.filePath = filePath;
+        this.lineNumber = lineNumber;
+        this.line = line;
+        this.match = match;
+    }
+
+    /**
+     * The file the line is from, or null for single-file searches.
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * 1-based line number in the searched file.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * False for lines that are only included because they follow a match.
+     */
+    public boolean isMatch() {
+        return match;
+    }
+
+    /**
+     * The line as shown in the results, e.g. "Line 42: text".
+     */
+    @Override
+    public String toString() {
+        return "Line " + lineNumber + ": " + line;
+    }
+}
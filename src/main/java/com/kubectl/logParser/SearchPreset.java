@@ -6,6 +6,9 @@ import java.util.List;
 
 public class SearchPreset implements Serializable {
     private static final long serialVersionUID = 1L;
+    // Where the log parser window and the command line tool keep saved presets
+    public static final String DEFAULT_PRESETS_FILE =
+            System.getProperty("user.home") + File.separator + "logparser_presets.dat";
     private String name;
     private List<LogParser.SearchGroup> searchGroups;
     private boolean includeAfterMatch;
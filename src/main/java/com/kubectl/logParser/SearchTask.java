@@ -0,0 +1,110 @@
+package com.kubectl.logParser;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A running search started by {@link LogParser#startSearch}. The result completes with the
+ * number of matching lines, or exceptionally with the I/O error or a
+ * {@link CancellationException}. Progress counters may be read from any thread while the
+ * search runs.
+ */
+public class SearchTask {
+    private final CompletableFuture<Integer> result = new CompletableFuture<>();
+    private final long totalBytes;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong linesScanned = new AtomicLong();
+    private final AtomicInteger matchCount = new AtomicInteger();
+    private volatile long endNanos;
+    private volatile boolean cancelled;
+
+    SearchTask(long totalBytes) {
+        this.totalBytes = totalBytes;
+        // Cancelling the future directly also stops the scan
+        result.whenComplete((count, error) -> {
+            endNanos = System.nanoTime();
+            if (error instanceof CancellationException) {
+                cancelled = true;
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> getResult() {
+        return result;
+    }
+
+    /**
+     * Asks the search to stop. The scan notices within a few thousand lines and the result
+     * completes with a {@link CancellationException}.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Size of the file (or files) being searched.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    public long getLinesScanned() {
+        return linesScanned.get();
+    }
+
+    public int getMatchCount() {
+        return matchCount.get();
+    }
+
+    public long getElapsedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+
+    public long getLinesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getLinesScanned() * 1000 / elapsed : 0;
+    }
+
+    public long getBytesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getBytesScanned() * 1000 / elapsed : 0;
+    }
+
+    /**
+     * One-line progress summary for a status bar.
+     */
+    public String describeProgress() {
+        long scanned = getBytesScanned();
+        int percent = totalBytes > 0 ? (int) (scanned * 100 / totalBytes) : 100;
+        return String.format("Scanned %,d of %,d MB (%d%%), %,d MB/s, %,d lines/s, %,d matches",
+                scanned >> 20, totalBytes >> 20, percent, getBytesPerSecond() >> 20, getLinesPerSecond(), getMatchCount());
+    }
+
+    void addProgress(long bytes, long lines, int matches) {
+        bytesScanned.addAndGet(bytes);
+        linesScanned.addAndGet(lines);
+        matchCount.addAndGet(matches);
+    }
+
+    void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Search cancelled");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.kubectl.logParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Interleaves the results of a multi-file search by their leading timestamps. Lines without
+ * one, such as stack trace lines, keep the timestamp of the line before them so they stay with
+ * their entry; ties go to the file added first.
+ *
+ * Each file's results are written to a {@link MatchSpool} as they are found, so memory use
+ * does not grow with the number of results. The merge reads at most {@link #MAX_FAN_IN} spools
+ * at a time: with more files, groups of spools are first merged into larger ones.
+ */
+class TimestampMerge implements Closeable {
+    // Spools read at once by one merge pass, which bounds open files and buffers
+    private static final int MAX_FAN_IN = 64;
+    // Records merged between cancellation checks
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    private final List<Spool> files = new ArrayList<>();
+    // Every spool created, including intermediate ones, so close() can delete them
+    private final List<MatchSpool> created = new ArrayList<>();
+
+    /**
+     * Adds a spool for the next file's results, in file order.
+     */
+    synchronized Spool addFile() throws IOException {
+        Spool spool = new Spool(newSpool());
+        files.add(spool);
+        return spool;
+    }
+
+    synchronized int getMatchCount() {
+        int count = 0;
+        for (Spool spool : files) {
+            count += spool.matchCount;
+        }
+        return count;
+    }
+
+    /**
+     * Passes every spooled result to the sink in timestamp order. All spools must be finished.
+     */
+    void mergeTo(Consumer<SearchMatch> sink, SearchTask task) throws IOException {
+        List<MatchSpool> level = new ArrayList<>();
+        for (Spool spool : files) {
+            level.add(spool.spool);
+        }
+        while (level.size() > MAX_FAN_IN) {
+            List<MatchSpool> merged = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += MAX_FAN_IN) {
+                List<MatchSpool> group = level.subList(i, Math.min(i + MAX_FAN_IN, level.size()));
+                MatchSpool out = newSpool();
+                merge(group, out::write, task);
+                out.finish();
+                for (MatchSpool spool : group) {
+                    spool.close();
+                }
+                merged.add(out);
+            }
+            level = merged;
+        }
+        merge(level, (timestamp, match) -> sink.accept(match), task);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (MatchSpool spool : created) {
+            spool.close();
+        }
+    }
+
+    private synchronized MatchSpool newSpool() throws IOException {
+        MatchSpool spool = new MatchSpool();
+        created.add(spool);
+        return spool;
+    }
+
+    private static void merge(List<MatchSpool> spools, RecordSink sink, SearchTask task) throws IOException {
+        List<MatchSpool.Reader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> {
+                int compare = Long.compare(a.reader.getTimestamp(), b.reader.getTimestamp());
+                return compare != 0 ? compare : Integer.compare(a.order, b.order);
+            });
+            for (int i = 0; i < spools.size(); i++) {
+                MatchSpool.Reader reader = spools.get(i).read();
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(new Head(i, reader));
+                }
+            }
+            long merged = 0;
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                sink.accept(head.reader.getTimestamp(), head.reader.getMatch());
+                if (head.reader.next()) {
+                    heads.add(head);
+                }
+                if (++merged % CANCEL_CHECK_INTERVAL == 0) {
+                    task.checkCancelled();
+                }
+            }
+        } finally {
+            for (MatchSpool.Reader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    // A spool's next record; order is the spool's position, which breaks ties
+    private static class Head {
+        final int order;
+        final MatchSpool.Reader reader;
+
+        Head(int order, MatchSpool.Reader reader) {
+            this.order = order;
+            this.reader = reader;
+        }
+    }
+
+    private interface RecordSink {
+        void accept(long timestamp, SearchMatch match) throws IOException;
+    }
+
+    /**
+     * One file's results, each stored with the timestamp it is ordered by. Written by one thread.
+     */
+    static class Spool {
+        private final MatchSpool spool;
+        private long previousTimestamp = LogTimestamps.NONE;
+        private volatile int matchCount;
+
+        private Spool(MatchSpool spool) {
+            this.spool = spool;
+        }
+
+        /**
+         * Appends the next result of the file.
+         */
+        void add(SearchMatch match) throws IOException {
+            long timestamp = LogTimestamps.parse(match.getLine());
+            previousTimestamp = timestamp != LogTimestamps.NONE ? timestamp : previousTimestamp;
+            spool.write(previousTimestamp, match);
+            if (match.isMatch()) {
+                matchCount++;
+            }
+        }
+
+        /**
+         * Flushes the spool once the file is searched.
+         */
+        void finish() throws IOException {
+            spool.finish();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.kubectl.logParser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegexLiteralsTest {
+
+    @Test
+    void requiresTheLongestLiteralRun() {
+        assertEquals(Arrays.asList("timeout"), RegexLiterals.requiredLiterals("ERROR.*timeout"));
+        assertEquals(Arrays.asList("ERROR", "FATAL"), RegexLiterals.requiredLiterals("ERROR|FATAL"));
+        assertNull(RegexLiterals.requiredLiterals("(?i)error"));
+    }
+
+    @Test
+    void optionalCharacterIsNotRequired() {
+        assertEquals(Arrays.asList("a"), RegexLiterals.requiredLiterals("ab?"));
+    }
+
+    @Test
+    void quantifierAfterSupplementaryCharacterCoversTheWholeCharacter() {
+        // "x😀?" matches "x"; the optional emoji must not leave its high surrogate behind
+        assertEquals(Arrays.asList("x"), RegexLiterals.requiredLiterals("x\uD83D\uDE00?"));
+        assertEquals(Arrays.asList("x"), RegexLiterals.requiredLiterals("x\uD83D\uDE00{0,2}"));
+        assertEquals(Arrays.asList("ab"), RegexLiterals.requiredLiterals("\\Qab\uD83D\uDE00\\E?"));
+        assertEquals(Arrays.asList("x\uD83D\uDE00"), RegexLiterals.requiredLiterals("x\uD83D\uDE00"));
+        assertEquals(Arrays.asList("x\uD83D\uDE00"), RegexLiterals.requiredLiterals("x\uD83D\uDE00+"));
+    }
+
+    @Test
+    void everyMatchContainsARequiredLiteral() {
+        String[][] cases = {
+                {"x\uD83D\uDE00?", "x"},
+                {"x\uD83D\uDE00*y", "xy"},
+                {"\\\uD83D\uDE00?z", "z"},
+                {"ab?c", "ac"},
+        };
+        for (String[] testCase : cases) {
+            String regex = testCase[0];
+            String line = testCase[1];
+            assertTrue(Pattern.compile(regex).matcher(line).find(), regex);
+            List<String> literals = RegexLiterals.requiredLiterals(regex);
+            assertTrue(literals == null || literals.stream().anyMatch(line::contains), regex + " -> " + literals);
+        }
+    }
+}